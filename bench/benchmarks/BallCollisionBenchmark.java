@@ -0,0 +1,88 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import game.GameEnvironment;
+import game.objects.BallSystem;
+import game.objects.Block;
+import gui.Point;
+import gui.shapes.Rectangle;
+
+/**
+ * Benchmarks the ball-to-ball collision phase of BallSystem. The balls move in
+ * a strip as high as the game area, made wider with the ball count so the
+ * density stays the same, which is the case where a sort and sweep along x
+ * should scale about linearly. One operation is one tick: the collision phase
+ * alone, or the move and the collision phase together.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-04
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BallCollisionBenchmark {
+    private static final double HEIGHT = 540;
+    private static final double AREA_PER_BALL = 1600;
+    private static final int RADIUS = 7;
+    private static final double SPEED = 5;
+    private static final int WARMUP_TICKS = 100;
+    private static final long SEED = 42;
+
+    @Param({"1000", "4000", "16000", "64000"})
+    private int ballCount;
+
+    private BallSystem system;
+
+    /**
+     * Fills the strip with balls moving in random directions, and lets them
+     * settle into the sorted order of the sweep.
+     */
+    @Setup
+    public void setup() {
+        double width = this.ballCount * AREA_PER_BALL / HEIGHT;
+        GameEnvironment environment = new GameEnvironment(width, HEIGHT);
+        environment.addCollidable(new Block(new Rectangle(new Point(0, 0), width, HEIGHT, Color.BLACK)));
+        this.system = new BallSystem(environment);
+        Random random = new Random(SEED);
+        for (int i = 0; i < this.ballCount; i++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            this.system.add(RADIUS + random.nextDouble() * (width - RADIUS * 2),
+                    RADIUS + random.nextDouble() * (HEIGHT - RADIUS * 2),
+                    Math.cos(angle) * SPEED, Math.sin(angle) * SPEED, RADIUS, Color.WHITE);
+        }
+        for (int t = 0; t < WARMUP_TICKS; t++) {
+            tick();
+        }
+    }
+
+    /**
+     * Measures the collision phase of a tick: the insertion sort and the sweep.
+     */
+    @Benchmark
+    public void collideBalls() {
+        this.system.collideBalls();
+    }
+
+    /**
+     * Measures a whole tick of the balls: moving them and then the collision
+     * phase.
+     */
+    @Benchmark
+    public void tick() {
+        this.system.timePassed();
+        this.system.collideBalls();
+    }
+}
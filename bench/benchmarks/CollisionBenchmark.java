@@ -0,0 +1,105 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import game.GameEnvironment;
+import game.informative.CollisionInfo;
+import game.interfaces.Collidable;
+import gui.Line;
+import gui.Point;
+import gui.RayHit;
+
+/**
+ * Benchmarks GameEnvironment closest collision queries over parameterized
+ * scenes. One operation is a single ball trajectory query; consecutive
+ * operations cycle through the balls of the scene. The environment is measured
+ * both as built and frozen, like the game freezes it once initialized.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CollisionBenchmark {
+    @Param({"100", "1000", "10000"})
+    private int blockCount;
+
+    @Param({"1", "100"})
+    private int ballCount;
+
+    @Param({"7", "50", "200"})
+    private double trajectoryLength;
+
+    @Param({"false", "true"})
+    private boolean frozen;
+
+    private GameEnvironment environment;
+    private Line[] trajectories;
+    private double[] starts;
+    private double[] deltas;
+    private RayHit hit;
+    private int index;
+
+    /**
+     * Builds the scene.
+     */
+    @Setup
+    public void setup() {
+        Scene scene = new Scene(this.blockCount, this.ballCount, this.trajectoryLength);
+        this.environment = scene.getEnvironment();
+        if (this.frozen) {
+            this.environment.freeze();
+        }
+        this.trajectories = scene.getTrajectories();
+        this.starts = new double[this.ballCount * 2];
+        this.deltas = new double[this.ballCount * 2];
+        for (int i = 0; i < this.ballCount; i++) {
+            Point start = this.trajectories[i].start();
+            Point end = this.trajectories[i].end();
+            this.starts[i * 2] = start.getX();
+            this.starts[i * 2 + 1] = start.getY();
+            this.deltas[i * 2] = end.getX() - start.getX();
+            this.deltas[i * 2 + 1] = end.getY() - start.getY();
+        }
+        this.hit = new RayHit();
+    }
+
+    private int next() {
+        int i = this.index;
+        this.index = i + 1 == this.ballCount ? 0 : i + 1;
+        return i;
+    }
+
+    /**
+     * Measures GameEnvironment.getClosestCollision.
+     *
+     * @return the collision information
+     */
+    @Benchmark
+    public CollisionInfo getClosestCollision() {
+        return this.environment.getClosestCollision(this.trajectories[next()]);
+    }
+
+    /**
+     * Measures the allocation-free GameEnvironment.castRay used by the game loop.
+     *
+     * @return the closest collidable
+     */
+    @Benchmark
+    public Collidable castRay() {
+        int i = next() * 2;
+        return this.environment.castRay(this.starts[i], this.starts[i + 1], this.deltas[i], this.deltas[i + 1],
+                this.hit);
+    }
+}
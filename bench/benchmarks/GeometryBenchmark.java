@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import gui.Line;
+import gui.Point;
+import gui.RayHit;
+import gui.shapes.Rectangle;
+
+/**
+ * Benchmarks the geometry primitives: line-line intersection, rectangle-line
+ * intersection and the closest point search. Every invocation moves on to the
+ * next precomputed input, so branch prediction doesn't see a single case.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-16
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeometryBenchmark {
+    private static final int INPUTS = 1024;
+    private static final int MASK = INPUTS - 1;
+
+    @Param({"7", "50", "200"})
+    private double trajectoryLength;
+
+    @Param({"4", "64"})
+    private int pointCount;
+
+    private Line[] lines;
+    private Line[] others;
+    private Rectangle rectangle;
+    private List<Point> points;
+    private Point origin;
+    private RayHit hit;
+    private int index;
+
+    /**
+     * Builds the inputs.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        this.lines = new Line[INPUTS];
+        this.others = new Line[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            this.lines[i] = randomLine(random);
+            this.others[i] = randomLine(random);
+        }
+        this.rectangle = new Rectangle(new Point(100 - 25, 100 - 12.5), 50, 25, Color.RED);
+        this.points = new ArrayList<Point>();
+        for (int i = 0; i < this.pointCount; i++) {
+            this.points.add(new Point(random.nextDouble() * 200, random.nextDouble() * 200));
+        }
+        this.origin = new Point(100, 100);
+        this.hit = new RayHit();
+    }
+
+    private Line randomLine(Random random) {
+        double x = 100 + (random.nextDouble() - 0.5) * this.trajectoryLength * 2;
+        double y = 100 + (random.nextDouble() - 0.5) * this.trajectoryLength * 2;
+        double angle = random.nextDouble() * 2 * Math.PI;
+        return new Line(x, y, x + Math.cos(angle) * this.trajectoryLength, y + Math.sin(angle) * this.trajectoryLength);
+    }
+
+    /**
+     * Measures Line.intersectionWith.
+     *
+     * @return the intersection point, or null
+     */
+    @Benchmark
+    public Point lineIntersectionWith() {
+        int i = this.index++ & MASK;
+        return this.lines[i].intersectionWith(this.others[i]);
+    }
+
+    /**
+     * Measures Rectangle.intersectionPoints.
+     *
+     * @return the intersection points
+     */
+    @Benchmark
+    public List<Point> rectangleIntersectionPoints() {
+        return this.rectangle.intersectionPoints(this.lines[this.index++ & MASK]);
+    }
+
+    /**
+     * Measures the allocation-free Rectangle.rayCast on the same inputs.
+     *
+     * @return the hit fraction
+     */
+    @Benchmark
+    public double rectangleRayCast() {
+        Line line = this.lines[this.index++ & MASK];
+        Point start = line.start();
+        Point end = line.end();
+        this.rectangle.rayCast(start.getX(), start.getY(), end.getX() - start.getX(), end.getY() - start.getY(),
+                this.hit);
+        return this.hit.getT();
+    }
+
+    /**
+     * Measures Point.closestPoint.
+     *
+     * @return the closest point
+     */
+    @Benchmark
+    public Point pointClosestPoint() {
+        return this.origin.closestPoint(this.points);
+    }
+}
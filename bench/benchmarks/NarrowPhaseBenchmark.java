@@ -0,0 +1,132 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import gui.Line;
+import gui.Point;
+import gui.shapes.BoxBatch;
+import gui.shapes.BoxKernel;
+import gui.shapes.Rectangle;
+
+/**
+ * Benchmarks the narrow phase of a closest collision query over a candidate
+ * set of bricks: the old loop of Rectangle intersection points, the scalar
+ * BoxKernel and the Vector API BoxKernel. One operation finds the closest
+ * brick crossed by one trajectory; consecutive operations cycle through
+ * precomputed trajectories. The vector kernel needs the JVM to be started with
+ * {@code --add-modules jdk.incubator.vector}, which {@code ant bench} does.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-06
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NarrowPhaseBenchmark {
+    private static final int INPUTS = 1024;
+    private static final int MASK = INPUTS - 1;
+    private static final double AREA = 400;
+    private static final double TRAJECTORY_LENGTH = 200;
+
+    @Param({"4", "16", "64", "256"})
+    private int candidateCount;
+
+    private Rectangle[] rectangles;
+    private BoxBatch boxes;
+    private Line[] lines;
+    private double[] segments;
+    private BoxKernel scalar;
+    private BoxKernel vector;
+    private int index;
+
+    /**
+     * Builds the candidate bricks and the trajectories.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        this.rectangles = new Rectangle[this.candidateCount];
+        this.boxes = new BoxBatch(this.candidateCount);
+        for (int i = 0; i < this.candidateCount; i++) {
+            Point corner = new Point(random.nextDouble() * AREA, random.nextDouble() * AREA);
+            this.rectangles[i] = new Rectangle(corner, Scene.BLOCK_WIDTH, Scene.BLOCK_HEIGHT, Color.RED);
+            this.boxes.add(this.rectangles[i]);
+        }
+        this.lines = new Line[INPUTS];
+        this.segments = new double[INPUTS * 4];
+        for (int i = 0; i < INPUTS; i++) {
+            double x = random.nextDouble() * AREA;
+            double y = random.nextDouble() * AREA;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            double dx = Math.cos(angle) * TRAJECTORY_LENGTH;
+            double dy = Math.sin(angle) * TRAJECTORY_LENGTH;
+            this.lines[i] = new Line(x, y, x + dx, y + dy);
+            this.segments[i * 4] = x;
+            this.segments[i * 4 + 1] = y;
+            this.segments[i * 4 + 2] = dx;
+            this.segments[i * 4 + 3] = dy;
+        }
+        this.scalar = BoxKernel.scalar();
+        this.vector = BoxKernel.vector();
+    }
+
+    /**
+     * Measures the old narrow phase: the intersection points of every candidate
+     * rectangle, keeping the one closest to the start of the trajectory.
+     *
+     * @return the index of the closest brick, or -1
+     */
+    @Benchmark
+    public int intersectionPoints() {
+        Line line = this.lines[this.index++ & MASK];
+        int best = -1;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.rectangles.length; i++) {
+            Point point = line.closestIntersectionToStartOfLine(this.rectangles[i]);
+            if (point != null) {
+                double distance = point.distance(line.start());
+                if (distance < bestDistance) {
+                    best = i;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Measures the scalar kernel.
+     *
+     * @return the index of the closest brick, or -1
+     */
+    @Benchmark
+    public int scalarKernel() {
+        int i = (this.index++ & MASK) * 4;
+        return this.scalar.nearest(this.boxes, this.segments[i], this.segments[i + 1], this.segments[i + 2],
+                this.segments[i + 3]);
+    }
+
+    /**
+     * Measures the Vector API kernel.
+     *
+     * @return the index of the closest brick, or -1
+     */
+    @Benchmark
+    public int vectorKernel() {
+        int i = (this.index++ & MASK) * 4;
+        return this.vector.nearest(this.boxes, this.segments[i], this.segments[i + 1], this.segments[i + 2],
+                this.segments[i + 3]);
+    }
+}
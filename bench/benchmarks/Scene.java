@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.awt.Color;
+import java.util.Random;
+
+import game.GameEnvironment;
+import game.objects.Block;
+import gui.Line;
+import gui.Point;
+import gui.shapes.Rectangle;
+
+/**
+ * The Scene class builds reproducible benchmark worlds: a field of bricks laid
+ * out on a lattice with gaps, enclosed by a game-area block, and a set of ball
+ * trajectories of a given length starting at random free spots.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-16
+ */
+public class Scene {
+    /** The width of a brick. */
+    public static final int BLOCK_WIDTH = 50;
+    /** The height of a brick. */
+    public static final int BLOCK_HEIGHT = 25;
+    private static final long SEED = 42;
+
+    private final GameEnvironment environment;
+    private final Block[] blocks;
+    private final Line[] trajectories;
+    private final double width;
+    private final double height;
+
+    /**
+     * Builds a scene.
+     *
+     * @param blockCount       the number of bricks
+     * @param ballCount        the number of ball trajectories
+     * @param trajectoryLength the length of every trajectory
+     */
+    public Scene(int blockCount, int ballCount, double trajectoryLength) {
+        // Every brick sits in its own 2x2 lattice slot, leaving room for the balls.
+        int columns = (int) Math.ceil(Math.sqrt(blockCount));
+        int rows = (int) Math.ceil((double) blockCount / columns);
+        this.width = columns * BLOCK_WIDTH * 2;
+        this.height = rows * BLOCK_HEIGHT * 2;
+        this.environment = new GameEnvironment(this.width, this.height);
+        this.environment.addCollidable(new Block(new Rectangle(new Point(0, 0), this.width, this.height, Color.BLACK)));
+
+        this.blocks = new Block[blockCount];
+        for (int i = 0; i < blockCount; i++) {
+            double x = (i % columns) * BLOCK_WIDTH * 2;
+            double y = (i / columns) * BLOCK_HEIGHT * 2;
+            this.blocks[i] = new Block(new Point(x, y), BLOCK_WIDTH, BLOCK_HEIGHT, Color.RED);
+            this.environment.addCollidable(this.blocks[i]);
+        }
+
+        Random random = new Random(SEED);
+        this.trajectories = new Line[ballCount];
+        for (int i = 0; i < ballCount; i++) {
+            double x = random.nextInt(columns) * BLOCK_WIDTH * 2 + BLOCK_WIDTH * 1.5;
+            double y = random.nextInt(rows) * BLOCK_HEIGHT * 2 + BLOCK_HEIGHT * 1.5;
+            double angle = random.nextDouble() * 2 * Math.PI;
+            this.trajectories[i] = new Line(x, y, x + Math.cos(angle) * trajectoryLength,
+                    y + Math.sin(angle) * trajectoryLength);
+        }
+    }
+
+    /**
+     * Gets the environment holding the bricks.
+     *
+     * @return the environment
+     */
+    public GameEnvironment getEnvironment() {
+        return this.environment;
+    }
+
+    /**
+     * Gets the bricks of the scene.
+     *
+     * @return the bricks
+     */
+    public Block[] getBlocks() {
+        return this.blocks;
+    }
+
+    /**
+     * Gets the ball trajectories of the scene.
+     *
+     * @return the trajectories
+     */
+    public Line[] getTrajectories() {
+        return this.trajectories;
+    }
+
+    /**
+     * Gets the width of the scene.
+     *
+     * @return the width
+     */
+    public double getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the scene.
+     *
+     * @return the height
+     */
+    public double getHeight() {
+        return this.height;
+    }
+}
@@ -0,0 +1,164 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import gui.Line;
+import gui.Point;
+import gui.SegmentBatch;
+
+/**
+ * Benchmarks the slope-based Line.intersectionWith against the parametric
+ * cross product intersection, for a single pair of segments and for the
+ * nearest of a set of segments. A quarter of the random segments are vertical
+ * and a quarter horizontal, the cases the slope form treats on their own.
+ * Every invocation moves on to the next precomputed input.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-15
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SegmentBenchmark {
+    private static final int INPUTS = 1024;
+    private static final int MASK = INPUTS - 1;
+    private static final double AREA = 200;
+
+    @Param({"7", "50", "200"})
+    private double trajectoryLength;
+
+    @Param({"4", "64"})
+    private int segmentCount;
+
+    private Line[] lines;
+    private Line[] others;
+    private double[] starts;
+    private double[] deltas;
+    private Line[] segments;
+    private SegmentBatch batch;
+    private int index;
+
+    /**
+     * Builds the inputs.
+     */
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        this.lines = new Line[INPUTS];
+        this.others = new Line[INPUTS];
+        this.starts = new double[INPUTS * 2];
+        this.deltas = new double[INPUTS * 2];
+        for (int i = 0; i < INPUTS; i++) {
+            this.lines[i] = randomLine(random);
+            this.others[i] = randomLine(random);
+            Point start = this.lines[i].start();
+            Point end = this.lines[i].end();
+            this.starts[i * 2] = start.getX();
+            this.starts[i * 2 + 1] = start.getY();
+            this.deltas[i * 2] = end.getX() - start.getX();
+            this.deltas[i * 2 + 1] = end.getY() - start.getY();
+        }
+        this.segments = new Line[this.segmentCount];
+        this.batch = new SegmentBatch(this.segmentCount);
+        for (int i = 0; i < this.segmentCount; i++) {
+            this.segments[i] = randomLine(random);
+            this.batch.add(this.segments[i]);
+        }
+    }
+
+    private Line randomLine(Random random) {
+        double x = AREA / 2 + (random.nextDouble() - 0.5) * this.trajectoryLength * 2;
+        double y = AREA / 2 + (random.nextDouble() - 0.5) * this.trajectoryLength * 2;
+        double angle;
+        switch (random.nextInt(4)) {
+            case 0:
+                angle = Math.PI / 2;
+                break;
+            case 1:
+                angle = 0;
+                break;
+            default:
+                angle = random.nextDouble() * 2 * Math.PI;
+        }
+        return new Line(x, y, x + Math.cos(angle) * this.trajectoryLength, y + Math.sin(angle) * this.trajectoryLength);
+    }
+
+    /**
+     * Measures Line.intersectionWith on a pair of segments.
+     *
+     * @return the intersection point, or null
+     */
+    @Benchmark
+    public Point pairSlope() {
+        int i = this.index++ & MASK;
+        return this.lines[i].intersectionWith(this.others[i]);
+    }
+
+    /**
+     * Measures Line.intersectionT on the same pairs.
+     *
+     * @return the intersection fraction
+     */
+    @Benchmark
+    public double pairParametric() {
+        int i = this.index++ & MASK;
+        return this.lines[i].intersectionT(this.others[i]);
+    }
+
+    /**
+     * Finds the nearest of the segments with Line.intersectionWith and the
+     * distance to every intersection point.
+     *
+     * @return the distance to the nearest intersection
+     */
+    @Benchmark
+    public double nearestSlope() {
+        Line line = this.lines[this.index++ & MASK];
+        Point start = line.start();
+        double best = Double.POSITIVE_INFINITY;
+        for (Line segment : this.segments) {
+            Point point = line.intersectionWith(segment);
+            if (point != null) {
+                best = Math.min(best, start.distance(point));
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the nearest of the segments with Line.intersectionT.
+     *
+     * @return the nearest intersection fraction
+     */
+    @Benchmark
+    public double nearestParametric() {
+        Line line = this.lines[this.index++ & MASK];
+        double best = Double.POSITIVE_INFINITY;
+        for (Line segment : this.segments) {
+            best = Math.min(best, line.intersectionT(segment));
+        }
+        return best;
+    }
+
+    /**
+     * Finds the nearest of the segments with SegmentBatch.nearestT.
+     *
+     * @return the nearest intersection fraction
+     */
+    @Benchmark
+    public double nearestBatch() {
+        int i = (this.index++ & MASK) * 2;
+        return this.batch.nearestT(this.starts[i], this.starts[i + 1], this.deltas[i], this.deltas[i + 1]);
+    }
+}
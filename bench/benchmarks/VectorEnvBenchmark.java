@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import game.env.VectorEnv;
+import game.input.ActionKeyboard;
+
+/**
+ * Benchmarks the vectorized learning environment. One operation is one step of
+ * every environment with random actions, including the resets of the episodes
+ * that end.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-10
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VectorEnvBenchmark {
+    private static final int ENVS = 64;
+    private static final int FRAME_SKIP = 4;
+    private static final long MAX_TICKS = 10_000;
+    private static final int ACTION_SETS = 256;
+    private static final long SEED = 42;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    @Param({"0", "100"})
+    private int extraBalls;
+
+    private VectorEnv env;
+    private int[][] actions;
+    private int index;
+
+    /**
+     * Builds the environments and the random actions.
+     */
+    @Setup
+    public void setup() {
+        this.env = new VectorEnv(ENVS, this.extraBalls, FRAME_SKIP, MAX_TICKS, SEED, this.threads);
+        this.env.reset();
+        Random random = new Random(SEED);
+        this.actions = new int[ACTION_SETS][ENVS];
+        for (int[] set : this.actions) {
+            for (int i = 0; i < ENVS; i++) {
+                set[i] = random.nextInt(ActionKeyboard.ACTIONS);
+            }
+        }
+    }
+
+    /**
+     * Stops the threads of the environments.
+     */
+    @TearDown
+    public void tearDown() {
+        this.env.close();
+    }
+
+    /**
+     * Measures a step of every environment.
+     *
+     * @return the observations
+     */
+    @Benchmark
+    public float[] step() {
+        this.env.step(this.actions[this.index++ % ACTION_SETS]);
+        return this.env.getObservations();
+    }
+}
@@ -1,23 +1,219 @@
+import java.io.IOException;
+
 import game.Game;
+import game.Match;
+import game.MatchHost;
+import game.input.IdleKeyboard;
+import game.input.Recording;
+import game.input.ReplayKeyboard;
 
 /**
- * The Game class represents the main class for running the game.
- * It initializes the game elements, such as the blocks, ball, and paddle, and
- * manages the game loop.
+ * The BreakOut class is the entry point of the game. It reads the command line
+ * options, sets up a Game and runs it.
+ * Options: {@code --headless} simulates without a window and prints the
+ * simulation speed, {@code --ticks N} stops after N ticks and {@code --balls N}
+ * adds N extra balls for the multi-ball stress mode and {@code --threads N} moves
+ * the balls on N threads. {@code --profile FILE} records the duration of every
+ * frame phase and writes p50/p99/max as CSV on exit, and {@code --overlay} also
+ * shows them on screen. {@code --record FILE} saves the seed and the paddle keys
+ * of every tick, and {@code --replay FILE} runs a recording headless at full
+ * speed on the recorded level and checks that it ends in the recorded state.
+ * {@code --tiles} builds the bricks as a single tile map.
+ * {@code --level FILE} takes the bricks from a binary level file, and
+ * {@code --export-level FILE} writes the bricks of the game into one at start.
+ * {@code --chunks SIZE} splits a loaded level into chunks that are only in the
+ * collision queries near the balls and the paddle.
+ * {@code --ball-collisions} makes the balls bounce off each other.
+ * {@code --matches N} hosts N headless games with the seeds 0 to N - 1 on the
+ * {@code --threads} threads of a MatchHost, each with a budget of
+ * {@code --ticks} ticks, and prints the matches and ticks per second and the
+ * tick latency.
+ * {@code --autopilot} lets the autopilot play the paddle, with or without a
+ * window.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.1
+ * @version 1.11
  * @since 2024-02-02
  */
 public class BreakOut {
+    private static final int MATCH_SLICE_TICKS = 64;
+
     /**
      * Main method to start the game.
      *
      * @param args command-line arguments
+     * @throws IOException if a recording or a level can't be read or written
      */
-    public static void main(String[] args) {
-        Game game = new Game();
+    public static void main(String[] args) throws IOException {
+        boolean headless = false;
+        long ticks = Long.MAX_VALUE;
+        int balls = 0;
+        int threads = 1;
+        String profile = null;
+        boolean overlay = false;
+        String record = null;
+        String replay = null;
+        boolean tiles = false;
+        String level = null;
+        String exportLevel = null;
+        double chunks = 0;
+        boolean ballCollisions = false;
+        int matches = 0;
+        boolean autopilot = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--headless")) {
+                headless = true;
+            } else if (args[i].equals("--ticks") && i + 1 < args.length) {
+                ticks = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--balls") && i + 1 < args.length) {
+                balls = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--profile") && i + 1 < args.length) {
+                profile = args[++i];
+            } else if (args[i].equals("--overlay")) {
+                overlay = true;
+            } else if (args[i].equals("--record") && i + 1 < args.length) {
+                record = args[++i];
+            } else if (args[i].equals("--replay") && i + 1 < args.length) {
+                replay = args[++i];
+            } else if (args[i].equals("--tiles")) {
+                tiles = true;
+            } else if (args[i].equals("--level") && i + 1 < args.length) {
+                level = args[++i];
+            } else if (args[i].equals("--export-level") && i + 1 < args.length) {
+                exportLevel = args[++i];
+            } else if (args[i].equals("--chunks") && i + 1 < args.length) {
+                chunks = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--ball-collisions")) {
+                ballCollisions = true;
+            } else if (args[i].equals("--matches") && i + 1 < args.length) {
+                matches = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--autopilot")) {
+                autopilot = true;
+            }
+        }
+        if (matches > 0) {
+            hostMatches(matches, threads, ticks, balls, tiles, ballCollisions);
+            return;
+        }
+
+        Recording replayed = null;
+        Game game;
+        if (replay != null) {
+            replayed = Recording.load(replay);
+            headless = true;
+            balls = replayed.getBalls();
+            threads = replayed.getThreads();
+            ticks = replayed.getTicks();
+            tiles = (replayed.getOptions() & Recording.OPTION_TILES) != 0;
+            ballCollisions = (replayed.getOptions() & Recording.OPTION_BALL_COLLISIONS) != 0;
+            if (replayed.getLevel() == null && level != null) {
+                throw new IOException("The recording was made without a level file");
+            }
+            if (replayed.getLevel() != null) {
+                // --level may point to a copy of the recorded level; its checksum is checked below.
+                level = level != null ? level : replayed.getLevel();
+                chunks = replayed.getChunkSize();
+            }
+            game = new Game(new ReplayKeyboard(replayed));
+            game.setSeed(replayed.getSeed());
+        } else {
+            game = headless ? new Game(new IdleKeyboard()) : new Game();
+            if (autopilot) {
+                game.enableAutopilot();
+            }
+        }
+        Recording recording = null;
+        if (record != null) {
+            recording = new Recording(game.getSeed(), balls, threads);
+            recording.setOptions((tiles ? Recording.OPTION_TILES : 0)
+                    | (ballCollisions ? Recording.OPTION_BALL_COLLISIONS : 0));
+            game.recordInput(recording);
+        }
+        game.setMaxTicks(ticks);
+        game.setTileBricks(tiles);
+        game.setBallCollisions(ballCollisions);
+        if (level != null) {
+            game.loadLevel(level);
+            game.setChunkSize(chunks);
+            long checksum = game.getLevel().checksum();
+            if (replayed != null && checksum != replayed.getLevelChecksum()) {
+                throw new IOException(level + " is not the level of the recording");
+            }
+            if (recording != null) {
+                recording.setLevel(level, checksum, chunks);
+            }
+        }
+        game.setParallelism(threads);
         game.initialize();
+        if (exportLevel != null) {
+            game.exportLevel(exportLevel);
+        }
+        if (profile != null || overlay) {
+            game.enableProfiling(profile, overlay);
+        }
+        if (balls > 0) {
+            game.addBalls(balls);
+        }
         game.run();
+        if (game.getProfiler() != null) {
+            for (int i = 0; i < game.getProfiler().getPhaseCount(); i++) {
+                System.out.println(game.getProfiler().summary(i));
+            }
+        }
+        if (recording != null) {
+            recording.setScore(game.getScore());
+            recording.setStateHash(game.stateHash());
+            recording.save(record);
+        }
+        if (replayed != null) {
+            // The ticks are taken from the recording, so only the final state tells the runs apart.
+            boolean same = game.stateHash() == replayed.getStateHash();
+            System.out.println(same ? "replay matches the recording"
+                    : "replay DIFFERS from the recording (ticks " + replayed.getTicks() + ", score "
+                            + replayed.getScore() + ")");
+        }
+        if (headless) {
+            System.out.printf("ticks: %d, ticks/s: %.0f, score: %d%n", game.getTicks(), game.getTicksPerSecond(),
+                    game.getScore());
+        } else {
+            System.out.printf("ticks: %d, late frames: %d, dropped steps: %d, score: %d%n", game.getTicks(),
+                    game.getLateFrames(), game.getDroppedSteps(), game.getScore());
+        }
+    }
+
+    /**
+     * Runs many headless games side by side on a MatchHost and prints its
+     * throughput.
+     *
+     * @param matches        the number of games
+     * @param threads        the number of host threads
+     * @param ticks          the tick budget of every game
+     * @param balls          the number of extra balls in every game
+     * @param tiles          whether the bricks are a tile map
+     * @param ballCollisions whether the balls bounce off each other
+     */
+    private static void hostMatches(int matches, int threads, long ticks, int balls, boolean tiles,
+            boolean ballCollisions) {
+        MatchHost host = new MatchHost(threads, MATCH_SLICE_TICKS);
+        for (int i = 0; i < matches; i++) {
+            Game game = new Game(new IdleKeyboard());
+            game.setSeed(i);
+            game.setTileBricks(tiles);
+            game.setBallCollisions(ballCollisions);
+            game.initialize();
+            if (balls > 0) {
+                game.addBalls(balls);
+            }
+            host.submit(game, ticks);
+        }
+        host.run();
+        long score = 0;
+        for (Match match : host.getMatches()) {
+            score += match.getGame().getScore();
+        }
+        System.out.println(host.summary());
+        System.out.printf("ticks: %d, total score: %d%n", host.getTicks(), score);
     }
 }
@@ -1,35 +1,63 @@
 package game;
 
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
 
-import biuoop.Sleeper;
 import biuoop.DrawSurface;
 import biuoop.GUI;
+import biuoop.KeyboardSensor;
 
+import gui.NullDrawSurface;
 import gui.Point;
 import gui.shapes.Rectangle;
 import game.informative.Counter;
+import game.informative.FrameProfiler;
+import game.input.Autopilot;
+import game.input.InputSource;
+import game.input.Recording;
+import game.input.RecordingKeyboard;
 import game.interfaces.Collidable;
+import game.interfaces.Hitter;
 import game.interfaces.Sprite;
 import game.listeners.BallRemover;
 import game.listeners.BlockRemover;
 import game.listeners.ScoreTrackingListener;
+import game.objects.ArenaBounds;
 import game.objects.Ball;
+import game.objects.BallSystem;
 import game.objects.Block;
+import game.objects.BrickField;
+import game.objects.ChunkBrick;
+import game.objects.ChunkedWorld;
 import game.objects.Paddle;
+import game.objects.ProfilerOverlay;
 import game.objects.ScoreIndicator;
+import game.objects.TileMap;
 
 /**
  * The Game class represents the main class for running the game.
- * It initializes the game elements, such as the blocks, ball, and paddle, and
- * manages the game loop.
+ * It builds the game elements, such as the blocks, balls, and paddle, and
+ * advances the world one fixed tick at a time, in a window or headless as fast
+ * as possible. A game is seeded and reads the paddle from an InputSource once
+ * per tick, so a run can be recorded and replayed, and its state between two
+ * ticks can be written into a snapshot and restored.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.7
+ * @version 1.21
  * @since 2024-21-01
  */
 public class Game {
     private static final String GAME_NAME = "ass5 - game";
+    private static final int FRAMES_PER_SECOND = 60;
+    private static final long NANOS_PER_STEP = 1_000_000_000L / FRAMES_PER_SECOND;
+    private static final int MAX_CATCH_UP_STEPS = 5;
     private static final int WIDTH = 800;
     private static final int HEIGHT = 600;
     private static final int MARGINS = 30;
@@ -47,9 +75,24 @@ public class Game {
     private static final int BALL_RADIUS = 7;
     private static final int BALL_SPACING = 32;
 
+    private static final double CHUNK_ACTIVATION = 100;
+    private static final int MAX_LOADED_CHUNKS = 64;
+
+    private static final int SNAPSHOT_MAGIC = 0x534E4150;
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final int SNAPSHOT_TILES = 1;
+    private static final int SNAPSHOT_FIELD = 2;
+    private static final int SNAPSHOT_CHUNKS = 4;
+    private static final int SNAPSHOT_BALL_SYSTEM = 8;
+    private static final int SNAPSHOT_HEADER_BYTES = Integer.BYTES * 5 + Long.BYTES + 1 + Integer.BYTES * 3
+            + Double.BYTES;
+    private static final int SNAPSHOT_BALL_BYTES = Double.BYTES * 4 + Integer.BYTES * 2;
+
     private static final int SCORE_SIZE = 17;
     private static final int SCORE_X = WIDTH / 2 - 40;
     private static final int SCORE_Y = SCORE_SIZE + 5;
+    private static final int PROFILER_X = MARGINS + 5;
+    private static final int PROFILER_Y = HEIGHT - MARGINS * 2 - 70;
 
     private static final Color BLACK_COLOR = new Color(33, 33, 33);
     private static final Color[] COLORS_ARRAY = new Color[] {new Color(0, 145, 234), new Color(0, 200, 83),
@@ -57,13 +100,119 @@ public class Game {
     private static final Color WHITE_COLOR = new Color(238, 238, 238);
 
     private SpriteCollection sprites = new SpriteCollection();
-    private GameEnvironment environment = new GameEnvironment();
-    private GUI gui = new GUI(GAME_NAME, WIDTH, HEIGHT);
-    private Sleeper sleeper = new Sleeper();
+    private GameEnvironment environment = new GameEnvironment(WIDTH, HEIGHT);
+    private HitEventQueue hitEvents = new HitEventQueue();
+    private ForkJoinPool pool = null;
+    private StaticLayer staticLayer = new StaticLayer(WIDTH, HEIGHT);
+    private GUI gui;
+    private KeyboardSensor keyboard;
+    private InputSource input = null;
     private Counter blockCounter = new Counter();
     private Counter ballsCounter = new Counter();
     private Counter scoreCounter = new Counter();
 
+    private BallSystem ballSystem = null;
+    private boolean tileBricks = false;
+    private boolean ballCollisions = false;
+    private LevelFile level = null;
+    private double chunkSize = 0;
+    private ChunkedWorld chunkedWorld = null;
+    private List<Block> bricks = new ArrayList<Block>();
+    private BlockRemover blockRemover = null;
+    private TileMap tileMap = null;
+    private BrickField brickField = null;
+    private List<Ball> balls = new ArrayList<Ball>();
+    private Paddle paddle = null;
+    private long seed = System.nanoTime();
+    private Random random = new Random(seed);
+
+    private long maxTicks = Long.MAX_VALUE;
+    private long ticks = 0;
+    private boolean finished = false;
+    private double ticksPerSecond = 0;
+    private long lateFrames = 0;
+    private long droppedSteps = 0;
+
+    private FrameProfiler profiler = null;
+    private String profileFile = null;
+
+    /**
+     * Constructs a game that opens a window and reads the paddle moves from its
+     * keyboard.
+     */
+    public Game() {
+        this.gui = new GUI(GAME_NAME, WIDTH, HEIGHT);
+        this.keyboard = gui.getKeyboardSensor();
+    }
+
+    /**
+     * Constructs a headless game, which opens no window and reads the paddle moves
+     * from the given input source.
+     *
+     * @param keyboard the input source of the paddle
+     */
+    public Game(KeyboardSensor keyboard) {
+        this.gui = null;
+        this.keyboard = keyboard;
+        if (keyboard instanceof InputSource) {
+            this.input = (InputSource) keyboard;
+        }
+    }
+
+    /**
+     * Seeds the random generator of the game. Should be called before
+     * {@link #initialize()}.
+     *
+     * @param newSeed the seed
+     */
+    public void setSeed(long newSeed) {
+        this.seed = newSeed;
+        this.random = new Random(newSeed);
+    }
+
+    /**
+     * Gets the seed of the random generator of the game.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Records the paddle input of every tick into the given recording. Should be
+     * called before {@link #initialize()}.
+     *
+     * @param recording the recording to append to
+     */
+    public void recordInput(Recording recording) {
+        RecordingKeyboard recorder = new RecordingKeyboard(this.keyboard, recording);
+        this.keyboard = recorder;
+        this.input = recorder;
+    }
+
+    /**
+     * Makes an autopilot play the paddle instead of the keyboard. Should be
+     * called before {@link #initialize()}.
+     *
+     * @return the autopilot
+     */
+    public Autopilot enableAutopilot() {
+        Autopilot pilot = new Autopilot(this);
+        this.keyboard = pilot;
+        this.input = pilot;
+        return pilot;
+    }
+
+    /**
+     * Gets the environment of the collidables of the game.
+     *
+     * @return the game environment
+     */
+    public GameEnvironment getEnvironment() {
+        return this.environment;
+    }
+
     /**
      * Adds a collidable object to the game environment.
      *
@@ -82,12 +231,29 @@ public class Game {
         sprites.addSprite(s);
     }
 
+    /**
+     * Adds a block that never moves. It is drawn through the cached static layer
+     * instead of being redrawn every frame.
+     *
+     * @param b the block to be added
+     */
+    public void addStaticSprite(Block b) {
+        staticLayer.addBlock(b);
+    }
+
     /**
      * Creates a basic triangle shape of blocks and adds them to the game.
      *
      * @param size the number of blocks in the upper level
      */
     private void basicTriangleShapeBlocks(int size) {
+        if (this.tileBricks) {
+            basicTriangleShapeTiles(size);
+            return;
+        }
+        // Every brick shares the same listeners
+        this.blockRemover = new BlockRemover(this, this.blockCounter);
+        ScoreTrackingListener scoreTracker = new ScoreTrackingListener(scoreCounter);
         int level = 0;
         int numberOfBlocks = size;
         while (numberOfBlocks > 0) {
@@ -99,9 +265,10 @@ public class Game {
                 Block block = new Block(new Point(x, y), BLOCK_WIDTH, BLOCK_HEIGHT,
                         COLORS_ARRAY[level % COLORS_ARRAY.length]);
 
-                block.addHitListener(new BlockRemover(this, this.blockCounter));
-                block.addHitListener(new ScoreTrackingListener(scoreCounter));
+                block.addHitListener(this.blockRemover);
+                block.addHitListener(scoreTracker);
                 block.addToGame(this);
+                this.bricks.add(block);
             }
             this.blockCounter.increase(numberOfBlocks);
             numberOfBlocks -= 2;
@@ -110,6 +277,151 @@ public class Game {
 
     }
 
+    /**
+     * Creates the basic triangle shape as a single tile map, one tile per block.
+     *
+     * @param size the number of blocks in the upper level
+     */
+    private void basicTriangleShapeTiles(int size) {
+        int levels = (size + 1) / 2;
+        Point origin = new Point((WIDTH - size * BLOCK_WIDTH) / 2, MARGINS * 2);
+        TileMap map = new TileMap(origin, BLOCK_WIDTH, BLOCK_HEIGHT, size, levels, COLORS_ARRAY);
+        for (int level = 0; level < levels; level++) {
+            for (int col = level; col < size - level; col++) {
+                map.setTile(col, level, level % COLORS_ARRAY.length + 1);
+            }
+        }
+        map.addHitListener(new BlockRemover(this, this.blockCounter));
+        map.addHitListener(new ScoreTrackingListener(scoreCounter));
+        map.addToGame(this);
+        this.blockCounter.increase(map.getSolidTiles());
+        this.tileMap = map;
+    }
+
+    /**
+     * Makes the bricks a single tile map instead of a block per brick. Should be
+     * called before {@link #initialize()}.
+     *
+     * @param tiles true for a tile map, false for blocks
+     */
+    public void setTileBricks(boolean tiles) {
+        this.tileBricks = tiles;
+    }
+
+    /**
+     * Makes the balls of the ball system bounce off each other. Should be called
+     * before {@link #run()}.
+     *
+     * @param collide true to let the balls collide, false to let them pass
+     *                through each other
+     */
+    public void setBallCollisions(boolean collide) {
+        this.ballCollisions = collide;
+    }
+
+    /**
+     * Takes the bricks from a level file instead of the basic triangle. Should be
+     * called before {@link #initialize()}.
+     *
+     * @param path the level file
+     * @throws IOException if the file can't be read or isn't a level file
+     */
+    public void loadLevel(String path) throws IOException {
+        this.level = LevelFile.open(path);
+    }
+
+    /**
+     * Gets the level file the bricks are taken from.
+     *
+     * @return the level, or null if the game uses the basic triangle
+     */
+    public LevelFile getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Splits the bricks of the loaded level into chunks that are only added while
+     * a ball or the paddle is near them. Should be called before
+     * {@link #initialize()}.
+     *
+     * @param size the side length of a chunk, or 0 to add the whole level at once
+     */
+    public void setChunkSize(double size) {
+        this.chunkSize = size;
+    }
+
+    /**
+     * Gets the chunked world of the level, if the level is split into chunks.
+     *
+     * @return the chunked world, or null if there is none
+     */
+    public ChunkedWorld getChunkedWorld() {
+        return this.chunkedWorld;
+    }
+
+    /**
+     * Adds the bricks of the loaded level file as a single brick field, or as a
+     * chunked world if a chunk size was set.
+     */
+    private void levelBricks() {
+        if (this.chunkSize > 0) {
+            this.chunkedWorld = new ChunkedWorld(this.level, this.chunkSize, CHUNK_ACTIVATION, MAX_LOADED_CHUNKS);
+            this.chunkedWorld.addHitListener(new BlockRemover(this, this.blockCounter));
+            this.chunkedWorld.addHitListener(new ScoreTrackingListener(scoreCounter));
+            this.chunkedWorld.addToGame(this);
+            this.blockCounter.increase(this.chunkedWorld.getAliveBricks());
+            return;
+        }
+        BrickField field = new BrickField(this.level);
+        field.addHitListener(new BlockRemover(this, this.blockCounter));
+        field.addHitListener(new ScoreTrackingListener(scoreCounter));
+        field.addToGame(this);
+        this.blockCounter.increase(field.getAliveBricks());
+        this.brickField = field;
+    }
+
+    /**
+     * Writes the bricks currently in the game into a level file: every collidable
+     * added through {@link #addCollidable(Collidable)} besides the arena and the
+     * paddle, whether it is a block, a tile map or a brick field, and every brick
+     * of a chunked world, loaded or not.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void exportLevel(String path) throws IOException {
+        List<Rectangle> bricks = new ArrayList<Rectangle>();
+        for (Collidable c : environment.getCollidablesList()) {
+            if (c instanceof TileMap) {
+                TileMap map = (TileMap) c;
+                for (int row = 0; row < map.getRows(); row++) {
+                    for (int col = 0; col < map.getColumns(); col++) {
+                        if (map.getTile(col, row) != 0) {
+                            bricks.add(map.tileRectangle(col, row));
+                        }
+                    }
+                }
+            } else if (c instanceof BrickField) {
+                BrickField field = (BrickField) c;
+                for (int i = 0; i < field.getLevel().getBrickCount(); i++) {
+                    if (field.isAlive(i)) {
+                        bricks.add(field.getLevel().getRectangle(i));
+                    }
+                }
+            } else if (c instanceof Block && !(c instanceof ChunkBrick)) {
+                bricks.add(c.getCollisionRectangle());
+            }
+        }
+        if (this.chunkedWorld != null) {
+            for (int i = 0; i < this.chunkedWorld.getLevel().getBrickCount(); i++) {
+                if (this.chunkedWorld.isAlive(i)) {
+                    bricks.add(this.chunkedWorld.getLevel().getRectangle(i));
+                }
+            }
+        }
+        LevelFile.write(path, WIDTH, HEIGHT, bricks, LevelFile.DEFAULT_CELL_SIZE);
+    }
+
     /**
      * Removes a collidable object from the game environment.
      *
@@ -128,27 +440,48 @@ public class Game {
         sprites.removeSpite(s);
     }
 
+    /**
+     * Removes a block that was added with {@link #addStaticSprite(Block)}. Only its
+     * region of the static layer is redrawn.
+     *
+     * @param b the block to be removed
+     */
+    public void removeStaticSprite(Block b) {
+        staticLayer.removeBlock(b);
+    }
+
     /**
      * Initializes the game by creating and adding the blocks, ball, and paddle.
      */
     public void initialize() {
+        // Static layer, drawn below every other sprite
+        sprites.addSprite(staticLayer);
+
         // Frame Block
         Block frameBlock = new Block(new Rectangle(new Point(0, 0), WIDTH, HEIGHT, WHITE_COLOR));
-        frameBlock.addToGame(this);
+        addStaticSprite(frameBlock);
 
         // Game Block
         Block gameBlock = new Block(new Rectangle(new Point(MARGINS, MARGINS), WIDTH - MARGINS * 2,
                 HEIGHT - MARGINS * 2, BLACK_COLOR));
-        gameBlock.addToGame(this);
+        addStaticSprite(gameBlock);
 
         // Death Block
         Block deathBlock = new Block(new Rectangle(new Point(MARGINS, HEIGHT - MARGINS - 1),
                 WIDTH - MARGINS * 2, 1, BLACK_COLOR));
         deathBlock.addHitListener(new BallRemover(this, this.ballsCounter));
-        deathBlock.addToGame(this);
+        addStaticSprite(deathBlock);
 
-        // Triangle shape
-        basicTriangleShapeBlocks(UPPER_LEVEL_BLOCKS);
+        // The blocks are only drawn; the walls and the kill line collide as planes.
+        ArenaBounds arena = new ArenaBounds(gameBlock.getCollisionRectangle(), deathBlock);
+        arena.addToGame(this);
+
+        // Triangle shape, unless a level was loaded
+        if (this.level != null) {
+            levelBricks();
+        } else {
+            basicTriangleShapeBlocks(UPPER_LEVEL_BLOCKS);
+        }
 
         // Balls
         Ball ball1 = new Ball(new Point(WIDTH / 2 + BALL_SPACING, HEIGHT / 2), BALL_RADIUS, WHITE_COLOR, environment);
@@ -164,59 +497,624 @@ public class Game {
         sprites.addSprite(ball3);
 
         ballsCounter.increase(3);
+        this.balls.add(ball1);
+        this.balls.add(ball2);
+        this.balls.add(ball3);
 
         // Paddle
         Point paddleLocation = new Point((WIDTH - PADDLE_WIDTH) / 2, HEIGHT - PADDLE_START * 2);
         Paddle paddle = new Paddle(paddleLocation, PADDLE_WIDTH, PADDLE_HEIGHT,
-                WHITE_COLOR, gui, environment);
+                WHITE_COLOR, keyboard, environment, gameBlock.getCollisionRectangle());
         paddle.addToGame(this);
+        this.paddle = paddle;
+
+        if (this.chunkedWorld != null) {
+            this.chunkedWorld.track(ball1);
+            this.chunkedWorld.track(ball2);
+            this.chunkedWorld.track(ball3);
+            this.chunkedWorld.track(paddle);
+            this.chunkedWorld.update();
+        }
 
         // score
         ScoreIndicator score = new ScoreIndicator(SCORE_X, SCORE_Y, scoreCounter, SCORE_SIZE, BLACK_COLOR);
         sprites.addSprite(score);
+
+        // The arena and the bricks don't move from here on.
+        environment.freeze();
     }
 
     /**
-     * Runs the game loop, managing the animation and timing.
+     * Gets the hit event queue of the game, through which blocks report hits. The
+     * hits of a tick are dispatched when the tick ends.
+     *
+     * @return the hit event queue
      */
-    public void run() {
-        int framesPerSecond = 60;
-        int millisecondsPerFrame = 1000 / framesPerSecond;
+    public HitEventQueue getHitEvents() {
+        return this.hitEvents;
+    }
+
+    /**
+     * Moves the balls on the given number of threads. Hit events raised while the
+     * balls move are applied at the end of each tick, in the same order for any
+     * number of threads above one. The game keeps a single pool of threads, which
+     * is shut down when the game ends or goes back to the serial mode.
+     *
+     * @param threads the number of threads, 1 or less for the serial mode
+     */
+    public void setParallelism(int threads) {
+        if (threads > 1) {
+            if (this.pool == null || this.pool.getParallelism() != threads) {
+                shutdownPool();
+                this.pool = new ForkJoinPool(threads);
+            }
+            sprites.setParallel(this.pool, hitEvents);
+        } else {
+            sprites.setParallel(null, null);
+            shutdownPool();
+        }
+    }
+
+    /**
+     * Stops the threads moving the balls, if there are any.
+     */
+    private void shutdownPool() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+            this.pool = null;
+        }
+    }
+
+    /**
+     * Gets the ball system of the game, creating it (as a single sprite) on first
+     * use.
+     *
+     * @return the ball system
+     */
+    public BallSystem getBallSystem() {
+        if (this.ballSystem == null) {
+            this.ballSystem = new BallSystem(environment);
+            sprites.addSprite(this.ballSystem);
+            if (this.chunkedWorld != null) {
+                this.chunkedWorld.track(this.ballSystem);
+            }
+        }
+        return this.ballSystem;
+    }
+
+    /**
+     * Adds balls to the ball system at random spots in the lower half of the game
+     * area, moving in random directions. Used by the multi-ball stress modes.
+     *
+     * @param count the number of balls to add
+     */
+    public void addBalls(int count) {
+        BallSystem system = getBallSystem();
+        double minX = MARGINS + BALL_RADIUS;
+        double rangeX = WIDTH - MARGINS * 2 - BALL_RADIUS * 2;
+        double minY = HEIGHT / 2;
+        double rangeY = HEIGHT / 2 - PADDLE_START * 2 - BALL_RADIUS * 2;
+        for (int i = 0; i < count; i++) {
+            double x = minX + random.nextDouble() * rangeX;
+            double y = minY + random.nextDouble() * rangeY;
+            double angle = random.nextDouble() * 360;
+            double dx = Math.cos(Math.toRadians(angle)) * START_SPEED;
+            double dy = Math.sin(Math.toRadians(angle)) * START_SPEED;
+            system.add(x, y, dx, dy, BALL_RADIUS, WHITE_COLOR);
+        }
+        ballsCounter.increase(count);
+        if (this.chunkedWorld != null) {
+            this.chunkedWorld.update();
+        }
+    }
+
+    /**
+     * Checks if the game is headless.
+     *
+     * @return true if the game runs without a window, false otherwise
+     */
+    public boolean isHeadless() {
+        return this.gui == null;
+    }
+
+    /**
+     * Limits the number of ticks a run may take. Useful for headless runs, where
+     * nobody is there to lose the balls.
+     *
+     * @param limit the maximal number of ticks
+     */
+    public void setMaxTicks(long limit) {
+        this.maxTicks = limit;
+    }
+
+    /**
+     * Gets the number of ticks simulated so far.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Gets the simulation speed of the last headless run.
+     *
+     * @return the simulated ticks per second
+     */
+    public double getTicksPerSecond() {
+        return this.ticksPerSecond;
+    }
+
+    /**
+     * Gets the width of the game screen.
+     *
+     * @return the width
+     */
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    /**
+     * Gets the height of the game screen.
+     *
+     * @return the height
+     */
+    public int getHeight() {
+        return HEIGHT;
+    }
+
+    /**
+     * Gets the paddle, once the game is initialized.
+     *
+     * @return the paddle
+     */
+    public Paddle getPaddle() {
+        return this.paddle;
+    }
+
+    /**
+     * Gets the number of balls: the three balls the game starts with, then the
+     * balls of the ball system. Balls that fell stay in the count while they are
+     * still held, standing still.
+     *
+     * @return the number of balls
+     */
+    public int getBallCount() {
+        return this.balls.size() + (this.ballSystem != null ? this.ballSystem.size() : 0);
+    }
+
+    /**
+     * Gets a ball, in the order of {@link #getBallCount()}.
+     *
+     * @param i the index of the ball
+     * @return the ball
+     */
+    public Hitter getBall(int i) {
+        return i < this.balls.size() ? this.balls.get(i) : this.ballSystem.getBall(i - this.balls.size());
+    }
+
+    /**
+     * Gets the number of balls still in the game.
+     *
+     * @return the number of balls left
+     */
+    public int getRemainingBalls() {
+        return this.ballsCounter.getValue();
+    }
 
-        Boolean win = false;
-        Boolean lost = false;
+    /**
+     * Gets the number of bricks still in the game.
+     *
+     * @return the number of bricks left
+     */
+    public int getRemainingBlocks() {
+        return this.blockCounter.getValue();
+    }
 
-        while (!win && !lost) {
-            // check if the player won
-            if (this.blockCounter.getValue() == 0) {
-                // Update the score
-                scoreCounter.increase(100);
-                // Exit
-                win = true;
+    /**
+     * Gets the current score.
+     *
+     * @return the score
+     */
+    public int getScore() {
+        return this.scoreCounter.getValue();
+    }
+
+    /**
+     * Gets a hash of the state of the world, so two runs can be checked to end
+     * in the same state. It is the CRC-32 of a {@link #snapshot(ByteBuffer)}.
+     * Must be called between ticks.
+     *
+     * @return the hash of the state
+     */
+    public long stateHash() {
+        ByteBuffer buffer = ByteBuffer.allocate(snapshotSize());
+        snapshot(buffer);
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return crc.getValue();
+    }
+
+    /**
+     * Gets the number of bytes {@link #snapshot(ByteBuffer)} needs for the
+     * current state. It only changes when balls are added to the ball system.
+     *
+     * @return the size of a snapshot in bytes
+     */
+    public int snapshotSize() {
+        int size = SNAPSHOT_HEADER_BYTES + sprites.orderSize() + SNAPSHOT_BALL_BYTES * this.balls.size()
+                + (this.bricks.size() + Long.SIZE - 1) / Long.SIZE * Long.BYTES;
+        if (this.tileMap != null) {
+            size += this.tileMap.stateSize();
+        }
+        if (this.brickField != null) {
+            size += this.brickField.stateSize();
+        }
+        if (this.ballSystem != null) {
+            size += this.ballSystem.stateSize();
+        }
+        if (this.chunkedWorld != null) {
+            size += this.chunkedWorld.stateSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the state of the world into a buffer, from its start, and flips it,
+     * so the buffer can be kept and restored from any number of times. The
+     * layout is fixed: a header with the tick count, the counters and the paddle,
+     * then the order of the sprites, the balls, a bit per standing brick, and the
+     * state of the tile map, the brick field, the ball system and the chunked
+     * world, for the ones the game has. Must be called between ticks. The
+     * random generator and the position of a replayed input are not part of a
+     * snapshot.
+     *
+     * @param buffer the buffer to write to, with at least
+     *               {@link #snapshotSize()} bytes
+     */
+    public void snapshot(ByteBuffer buffer) {
+        buffer.clear();
+        buffer.putInt(SNAPSHOT_MAGIC);
+        buffer.putInt(SNAPSHOT_VERSION);
+        buffer.putInt(snapshotParts());
+        buffer.putInt(this.balls.size());
+        buffer.putInt(this.bricks.size());
+        buffer.putLong(this.ticks);
+        buffer.put((byte) (this.finished ? 1 : 0));
+        buffer.putInt(this.blockCounter.getValue());
+        buffer.putInt(this.ballsCounter.getValue());
+        buffer.putInt(this.scoreCounter.getValue());
+        buffer.putDouble(this.paddle.getCollisionRectangle().getStartX());
+        sprites.writeOrder(buffer);
+        for (Ball ball : this.balls) {
+            buffer.putDouble(ball.getX());
+            buffer.putDouble(ball.getY());
+            buffer.putDouble(ball.getDx());
+            buffer.putDouble(ball.getDy());
+            buffer.putInt(ball.getSize());
+            buffer.putInt(ball.getColor().getRGB());
+        }
+        for (int i = 0; i < this.bricks.size(); i += Long.SIZE) {
+            long word = 0;
+            for (int j = 0; j < Long.SIZE && i + j < this.bricks.size(); j++) {
+                if (environment.contains(this.bricks.get(i + j))) {
+                    word |= 1L << j;
+                }
             }
+            buffer.putLong(word);
+        }
+        if (this.tileMap != null) {
+            this.tileMap.writeState(buffer);
+        }
+        if (this.brickField != null) {
+            this.brickField.writeState(buffer);
+        }
+        if (this.ballSystem != null) {
+            this.ballSystem.writeState(buffer);
+        }
+        if (this.chunkedWorld != null) {
+            this.chunkedWorld.writeState(buffer);
+        }
+        buffer.flip();
+    }
 
-            // Check if the player lost the game
-            if (this.ballsCounter.getValue() == 0) {
-                lost = true;
+    /**
+     * Restores the state of the world from a buffer written by
+     * {@link #snapshot(ByteBuffer)}, reading it from its start. The snapshot may
+     * come from this game or from another game set up the same way (the same
+     * bricks or level, options and number of extra balls). Balls and bricks
+     * removed since the snapshot are added back. Must be called between ticks.
+     *
+     * @param buffer the buffer to read from
+     * @throws IllegalArgumentException if the buffer holds no snapshot, or a
+     *                                  snapshot of a game set up differently
+     */
+    public void restore(ByteBuffer buffer) {
+        buffer.rewind();
+        if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+            throw new IllegalArgumentException("Not a game snapshot");
+        }
+        if (buffer.getInt() != snapshotParts() || buffer.getInt() != this.balls.size()
+                || buffer.getInt() != this.bricks.size()) {
+            throw new IllegalArgumentException("The snapshot is of a game set up differently");
+        }
+        this.ticks = buffer.getLong();
+        this.finished = buffer.get() != 0;
+        this.blockCounter.setValue(buffer.getInt());
+        this.ballsCounter.setValue(buffer.getInt());
+        this.scoreCounter.setValue(buffer.getInt());
+        this.paddle.moveTo(buffer.getDouble());
+        sprites.readOrder(buffer);
+        for (Ball ball : this.balls) {
+            ball.setPoint(new Point(buffer.getDouble(), buffer.getDouble()));
+            ball.setVelocity(buffer.getDouble(), buffer.getDouble());
+            ball.setSize(buffer.getInt());
+            ball.setColor(new Color(buffer.getInt()));
+            if (!sprites.contains(ball)) {
+                this.hitEvents.unregister(ball);
             }
+        }
+        for (int i = 0; i < this.bricks.size(); i += Long.SIZE) {
+            long word = buffer.getLong();
+            for (int j = 0; j < Long.SIZE && i + j < this.bricks.size(); j++) {
+                Block brick = this.bricks.get(i + j);
+                boolean standing = (word & (1L << j)) != 0;
+                if (standing && !environment.contains(brick)) {
+                    brick.addToGame(this);
+                    brick.addHitListener(this.blockRemover);
+                } else if (!standing && environment.contains(brick)) {
+                    brick.removeFromGame(this);
+                    brick.removeHitListener(this.blockRemover);
+                }
+            }
+        }
+        if (this.tileMap != null) {
+            this.tileMap.readState(buffer);
+        }
+        if (this.brickField != null) {
+            this.brickField.readState(buffer);
+        }
+        if (this.ballSystem != null) {
+            this.ballSystem.readState(buffer);
+        }
+        if (this.chunkedWorld != null) {
+            this.chunkedWorld.readState(buffer);
+        }
+    }
 
-            long startTime = System.currentTimeMillis(); // timing
-            DrawSurface d = gui.getDrawSurface();
+    /**
+     * Gets the parts of the world this game has besides the balls and the
+     * bricks, as a mask of the snapshot part flags.
+     *
+     * @return the mask of the parts
+     */
+    private int snapshotParts() {
+        return (this.tileMap != null ? SNAPSHOT_TILES : 0) | (this.brickField != null ? SNAPSHOT_FIELD : 0)
+                | (this.chunkedWorld != null ? SNAPSHOT_CHUNKS : 0)
+                | (this.ballSystem != null ? SNAPSHOT_BALL_SYSTEM : 0);
+    }
+
+    /**
+     * Turns profiling on. Should be called after {@link #initialize()}, so the
+     * overlay is drawn above the rest of the sprites.
+     *
+     * @param csvFile the file the phase statistics are written to when the run
+     *                ends, or null to keep them in memory only
+     * @param overlay true to show the phase statistics on screen
+     */
+    public void enableProfiling(String csvFile, boolean overlay) {
+        this.profiler = new FrameProfiler();
+        this.profileFile = csvFile;
+        environment.setProfiler(this.profiler);
+        if (overlay) {
+            sprites.addSprite(new ProfilerOverlay(this.profiler, PROFILER_X, PROFILER_Y, WHITE_COLOR));
+        }
+    }
+
+    /**
+     * Gets the profiler of the game.
+     *
+     * @return the profiler, or null if profiling is off
+     */
+    public FrameProfiler getProfiler() {
+        return this.profiler;
+    }
+
+    /**
+     * Advances the world by one tick.
+     */
+    public void step() {
+        long start = this.profiler != null ? System.nanoTime() : 0;
+        if (this.input != null) {
+            this.input.tick();
+        }
+        this.sprites.notifyAllTimePassed();
+        if (this.ballCollisions && this.ballSystem != null) {
+            this.ballSystem.collideBalls();
+        }
+        this.hitEvents.flush();
+        this.ticks++;
+        if (this.profiler != null) {
+            this.profiler.record(FrameProfiler.UPDATE, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Draws every sprite on the given surface, and shows it if there is a window.
+     *
+     * @param d the surface to draw on
+     */
+    private void drawFrame(DrawSurface d) {
+        if (this.profiler == null) {
             this.sprites.drawAllOn(d);
+            if (gui != null) {
+                gui.show(d);
+            }
+            return;
+        }
+        long start = System.nanoTime();
+        this.sprites.drawAllOn(d);
+        long drawn = System.nanoTime();
+        this.profiler.record(FrameProfiler.DRAW, drawn - start);
+        if (gui != null) {
             gui.show(d);
-            this.sprites.notifyAllTimePassed();
+            this.profiler.record(FrameProfiler.SHOW, System.nanoTime() - drawn);
+        }
+    }
+
+    /**
+     * Writes the profile of the run, if profiling to a file is on.
+     */
+    private void writeProfile() {
+        if (this.profiler == null || this.profileFile == null) {
+            return;
+        }
+        try {
+            this.profiler.writeCsv(this.profileFile);
+        } catch (IOException e) {
+            System.err.println("Could not write the profile to " + this.profileFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Checks if the player won or lost, and gives the winning bonus.
+     *
+     * @return true if the game is over, false otherwise
+     */
+    private boolean checkGameOver() {
+        // check if the player won
+        if (this.blockCounter.getValue() == 0) {
+            // Update the score
+            scoreCounter.increase(100);
+            return true;
+        }
+        // Check if the player lost the game
+        return this.ballsCounter.getValue() == 0;
+    }
+
+    /**
+     * Gets the number of frames that needed more than one simulation step to catch
+     * up with the clock, during the last windowed run.
+     *
+     * @return the number of late frames
+     */
+    public long getLateFrames() {
+        return this.lateFrames;
+    }
+
+    /**
+     * Gets the number of simulation steps skipped because a stall was longer than
+     * the catch-up bound, during the last windowed run.
+     *
+     * @return the number of dropped steps
+     */
+    public long getDroppedSteps() {
+        return this.droppedSteps;
+    }
+
+    /**
+     * Runs the game loop, managing the animation and timing.
+     * The simulation advances in fixed steps of 1/60 second, measured with
+     * System.nanoTime. The time that passed is accumulated and consumed one step
+     * at a time, so the game speed doesn't drift with the frame rate. After a
+     * stall at most MAX_CATCH_UP_STEPS steps run in one frame and the rest of the
+     * backlog is dropped.
+     * A headless game runs without any pacing and measures its ticks per second.
+     */
+    public void run() {
+        if (isHeadless()) {
+            runHeadless();
+            return;
+        }
+        this.lateFrames = 0;
+        this.droppedSteps = 0;
 
-            // timing
-            long usedTime = System.currentTimeMillis() - startTime;
-            long milliSecondLeftToSleep = millisecondsPerFrame - usedTime;
-            if (milliSecondLeftToSleep > 0) {
-                sleeper.sleepFor(milliSecondLeftToSleep);
+        long previous = System.nanoTime();
+        long accumulator = NANOS_PER_STEP;
+        boolean over = false;
+        while (!over && this.ticks < this.maxTicks) {
+            long now = System.nanoTime();
+            accumulator += now - previous;
+            previous = now;
+
+            int steps = 0;
+            while (accumulator >= NANOS_PER_STEP && steps < MAX_CATCH_UP_STEPS && !over
+                    && this.ticks < this.maxTicks) {
+                over = checkGameOver();
+                step();
+                accumulator -= NANOS_PER_STEP;
+                steps++;
+            }
+            if (steps > 1) {
+                this.lateFrames++;
+            }
+            if (!over && this.ticks < this.maxTicks && accumulator >= NANOS_PER_STEP) {
+                // Too far behind: drop the backlog instead of spiraling.
+                this.droppedSteps += accumulator / NANOS_PER_STEP;
+                accumulator %= NANOS_PER_STEP;
+            }
+
+            drawFrame(gui.getDrawSurface());
+            if (this.profiler != null) {
+                this.profiler.record(FrameProfiler.FRAME, System.nanoTime() - now);
+            }
+
+            // Sleep until the next step is due.
+            long wait = NANOS_PER_STEP - accumulator - (System.nanoTime() - now);
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
             }
         }
 
-        if (win || lost) {
-            gui.close();
+        gui.close();
+        setParallelism(1);
+        writeProfile();
+    }
+
+    /**
+     * Advances a headless game by a single tick, the way the headless loop does,
+     * so a scheduler can interleave the ticks of many games on a few threads.
+     *
+     * @return true if the game goes on, false once it is over or out of ticks
+     */
+    public boolean advance() {
+        if (this.finished || this.ticks >= this.maxTicks) {
+            this.finished = true;
+            return false;
+        }
+        this.finished = checkGameOver();
+        step();
+        if (this.ticks >= this.maxTicks) {
+            this.finished = true;
+        }
+        if (this.finished) {
+            setParallelism(1);
+        }
+        return !this.finished;
+    }
+
+    /**
+     * Runs the game loop as fast as possible, without a window.
+     */
+    private void runHeadless() {
+        DrawSurface d = new NullDrawSurface(WIDTH, HEIGHT);
+        long startTicks = this.ticks;
+        long startTime = System.nanoTime();
+
+        boolean over = false;
+        while (!over && this.ticks < this.maxTicks) {
+            long frameStart = this.profiler != null ? System.nanoTime() : 0;
+            over = checkGameOver();
+            drawFrame(d);
+            step();
+            if (this.profiler != null) {
+                this.profiler.record(FrameProfiler.FRAME, System.nanoTime() - frameStart);
+            }
         }
 
+        long elapsed = Math.max(1, System.nanoTime() - startTime);
+        this.ticksPerSecond = (this.ticks - startTicks) * 1e9 / elapsed;
+        setParallelism(1);
+        writeProfile();
     }
 }
@@ -1,33 +1,79 @@
 package game;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 import game.informative.CollisionInfo;
+import game.informative.FrameProfiler;
 import game.interfaces.Collidable;
-import gui.Point;
 import gui.Line;
-import gui.shapes.Rectangle;
+import gui.Point;
+import gui.RayHit;
+import gui.shapes.BoxKernel;
 
 /**
  * The GameEnvironment class represents the environment in which objects can
  * collide. It manages a collection of Collidable objects and provides methods
- * to add collidables, retrieve the list of collidables, and find the closest
- * collision point along a trajectory.
+ * to add and remove collidables and to find the closest collision along a
+ * trajectory, through a uniform grid (see SpatialGrid). Once the level is built
+ * the environment is frozen, and only the collidables that can move are read
+ * again on every query.
+ * Blocks are removed by hit listeners, which only run when the hit events are
+ * flushed at the end of the tick, so a block stays here for the rest of the
+ * tick it was hit in and another ball may still hit it during that tick.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.2
+ * @version 1.11
  * @since 2024-21-01
  */
 public class GameEnvironment {
-    private List<Collidable> collidables = new ArrayList<Collidable>();
+    private static final double DEFAULT_WIDTH = 800;
+    private static final double DEFAULT_HEIGHT = 600;
+    private static final double CELL_SIZE = 50;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Collidable[] collidables = new Collidable[INITIAL_CAPACITY];
+    private int size = 0;
+    private Map<Collidable, Integer> indexes = new IdentityHashMap<Collidable, Integer>();
+    private SpatialGrid grid;
+    private FrameProfiler profiler = null;
+
+    /**
+     * Constructs an environment whose grid covers the default 800x600 screen.
+     */
+    public GameEnvironment() {
+        this(DEFAULT_WIDTH, DEFAULT_HEIGHT);
+    }
+
+    /**
+     * Constructs an environment whose grid covers the area from (0, 0) to
+     * (width, height).
+     *
+     * @param width  the width of the world
+     * @param height the height of the world
+     */
+    public GameEnvironment(double width, double height) {
+        this.grid = new SpatialGrid(width, height, CELL_SIZE);
+    }
 
     /**
-     * Adds the given collidable to the environment.
+     * Adds the given collidable to the environment. A collidable is held at most
+     * once, so adding it again does nothing.
      *
      * @param c The collidable object to be added.
      */
     public void addCollidable(Collidable c) {
-        this.collidables.add(c);
+        if (this.indexes.containsKey(c)) {
+            return;
+        }
+        if (this.size == this.collidables.length) {
+            this.collidables = Arrays.copyOf(this.collidables, this.size * 2);
+        }
+        this.indexes.put(c, this.size);
+        this.collidables[this.size++] = c;
+        this.grid.add(c);
     }
 
     /**
@@ -36,52 +82,148 @@ public class GameEnvironment {
      * @param c The collidable object to be removed.
      */
     public void removeCollidable(Collidable c) {
-        this.collidables.remove(c);
+        Integer index = this.indexes.remove(c);
+        if (index == null) {
+            return;
+        }
+        Collidable last = this.collidables[--this.size];
+        this.collidables[this.size] = null;
+        if (last != c) {
+            this.collidables[index] = last;
+            this.indexes.put(last, index);
+        }
+        this.grid.remove(c);
     }
 
     /**
-     * Gets the list of collidables in the environment.
+     * Notifies the environment that the collision rectangle of the given
+     * collidable moved, so it can be re-indexed.
+     *
+     * @param c The collidable object that moved.
+     */
+    public void updateCollidable(Collidable c) {
+        this.grid.update(c);
+    }
+
+    /**
+     * Freezes the collidables added so far: the fixed boxes are packed into
+     * flat arrays of their bounds, and the others (like the paddle) are tested
+     * on every query with their current rectangle. Collidables can still be
+     * added and removed afterwards. Called once the game is initialized.
+     */
+    public void freeze() {
+        this.grid.freeze();
+    }
+
+    /**
+     * Checks if the environment was frozen.
+     *
+     * @return True if the fixed boxes are packed, false otherwise.
+     */
+    public boolean isFrozen() {
+        return this.grid.isFrozen();
+    }
+
+    /**
+     * Sets the narrow phase kernel that tests the fixed boxes near a trajectory.
+     * By default it is the Vector API kernel when that module is enabled, and the
+     * scalar one otherwise; both give the same answers.
+     *
+     * @param kernel The kernel.
+     */
+    public void setBoxKernel(BoxKernel kernel) {
+        this.grid.setKernel(kernel);
+    }
+
+    /**
+     * Gets the narrow phase kernel that tests the fixed boxes near a trajectory.
+     *
+     * @return The kernel.
+     */
+    public BoxKernel getBoxKernel() {
+        return this.grid.getKernel();
+    }
+
+    /**
+     * Sets the profiler that records the duration of the collision queries.
+     *
+     * @param p The profiler, or null to stop profiling.
+     */
+    public void setProfiler(FrameProfiler p) {
+        this.profiler = p;
+    }
+
+    /**
+     * Gets a copy of the list of collidables in the environment. Removals reorder
+     * the collidables, so the indexes are not stable.
      *
      * @return List of collidables.
      */
     public List<Collidable> getCollidablesList() {
-        return this.collidables;
+        return new ArrayList<Collidable>(Arrays.asList(this.collidables).subList(0, this.size));
+    }
+
+    /**
+     * Checks if the given collidable is in the environment.
+     *
+     * @param c The collidable object.
+     * @return True if the collidable was added and not removed, false otherwise.
+     */
+    public boolean contains(Collidable c) {
+        return this.indexes.containsKey(c);
     }
 
+    /**
+     * Gets the number of collidables in the environment.
+     *
+     * @return The number of collidables.
+     */
+    public int size() {
+        return this.size;
+    }
 
+    /**
+     * Finds the closest collidable crossed by the segment from (x, y) to
+     * (x + dx, y + dy). This is the allocation-free form of
+     * {@link #getClosestCollision(Line)} used by the game loop.
+     *
+     * @param x   The x-coordinate of the segment start.
+     * @param y   The y-coordinate of the segment start.
+     * @param dx  The x-component of the segment.
+     * @param dy  The y-component of the segment.
+     * @param hit The result to fill with the hit fraction and face.
+     * @return The closest collidable, or null if there is none.
+     */
+    public Collidable castRay(double x, double y, double dx, double dy, RayHit hit) {
+        if (this.profiler == null) {
+            return this.grid.closest(x, y, dx, dy, hit);
+        }
+        long start = System.nanoTime();
+        Collidable closest = this.grid.closest(x, y, dx, dy, hit);
+        this.profiler.recordCollision(System.nanoTime() - start);
+        return closest;
+    }
 
     /**
      * Assumes an object moving from line.start() to line.end(). If this object
      * will not collide with any of the collidables in this collection, return
      * null. Else, return the information about the closest collision that is
-     * going to occur.
+     * going to occur, with the time of impact and the normal of the face hit.
      *
      * @param trajectory The line representing the movement trajectory.
      * @return CollisionInfo containing information about the closest collision.
      */
     public CollisionInfo getClosestCollision(Line trajectory) {
-        double minDistance = Double.MAX_VALUE;
-        Point closestPoint = null;
-        Collidable closestObjectCollidable = null;
-
-        // Iterate through collidables to find the closest collision point.
-        for (Collidable collidable : this.collidables) {
-            Rectangle rect = collidable.getCollisionRectangle();
-            List<Point> points = rect.intersectionPoints(trajectory);
-
-            if (!points.isEmpty()) {
-                Point p = trajectory.start().closestPoint(points);
-                double distance = trajectory.start().distance(p);
-
-                if (distance < minDistance) {
-                    closestObjectCollidable = collidable;
-                    closestPoint = p;
-                    minDistance = distance;
-                }
-            }
-        }
+        Point start = trajectory.start();
+        Point end = trajectory.end();
+        double dx = end.getX() - start.getX();
+        double dy = end.getY() - start.getY();
 
-        // Return CollisionInfo with information about the closest collision.
-        return new CollisionInfo(closestPoint, closestObjectCollidable, minDistance);
+        RayHit hit = new RayHit();
+        Collidable closest = castRay(start.getX(), start.getY(), dx, dy, hit);
+        if (closest == null) {
+            return new CollisionInfo(null, null, Double.MAX_VALUE);
+        }
+        return CollisionInfo.fromRayHit(closest, start.getX(), start.getY(), dx, dy, hit);
     }
 }
@@ -0,0 +1,159 @@
+package game;
+
+import gui.RayHit;
+
+/**
+ * The GridWalk class walks the cells of a regular grid crossed by a segment, in
+ * the order the segment crosses them (Amanatides &amp; Woo). It is a cursor: a
+ * walk is started at a cell, the current cell is read, and the walk is moved on
+ * cell by cell, so a query can stop as soon as nothing in a later cell can be
+ * closer. Every boundary crossing costs an addition, and a walk allocates
+ * nothing, so a walk can be kept per thread and reused by every query.
+ * The walk itself doesn't know the size of the grid; it is up to the caller to
+ * clamp the cells or stop once the walk leaves the grid.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-16
+ */
+public class GridWalk {
+    private int column;
+    private int row;
+    private int stepX;
+    private int stepY;
+    private int remaining;
+    private double tDeltaX;
+    private double tDeltaY;
+    private double tMaxX;
+    private double tMaxY;
+
+    /**
+     * Gets the cell holding a coordinate along one axis of a grid.
+     *
+     * @param coordinate the coordinate
+     * @param origin     the coordinate where cell 0 starts
+     * @param size       the size of a cell along the axis
+     * @return the index of the cell, which may be outside of the grid
+     */
+    public static int cellOf(double coordinate, double origin, double size) {
+        return (int) Math.floor((coordinate - origin) / size);
+    }
+
+    /**
+     * Starts a walk of the segment from (x0, y0) to (x0 + dx, y0 + dy) over a
+     * grid of square cells starting at (0, 0), at the cell of the segment start.
+     *
+     * @param cellSize the side length of a cell
+     * @param x0       the x-coordinate of the segment start
+     * @param y0       the y-coordinate of the segment start
+     * @param dx       the x-component of the segment
+     * @param dy       the y-component of the segment
+     */
+    public void start(double cellSize, double x0, double y0, double dx, double dy) {
+        start(0, 0, cellSize, cellSize, cellOf(x0, 0, cellSize), cellOf(y0, 0, cellSize), x0, y0, dx, dy, 0);
+    }
+
+    /**
+     * Starts a walk of the segment from (x0, y0) to (x0 + dx, y0 + dy) at a given
+     * cell. A component of the segment no longer than the axis epsilon is walked
+     * as if it were 0, so the walk never crosses a boundary along that axis.
+     *
+     * @param originX     the x-coordinate where column 0 starts
+     * @param originY     the y-coordinate where row 0 starts
+     * @param cellWidth   the width of a cell
+     * @param cellHeight  the height of a cell
+     * @param startColumn the column to start at
+     * @param startRow    the row to start at
+     * @param x0          the x-coordinate of the segment start
+     * @param y0          the y-coordinate of the segment start
+     * @param dx          the x-component of the segment
+     * @param dy          the y-component of the segment
+     * @param axisEpsilon the largest component walked as 0
+     */
+    public void start(double originX, double originY, double cellWidth, double cellHeight, int startColumn,
+            int startRow, double x0, double y0, double dx, double dy, double axisEpsilon) {
+        this.column = startColumn;
+        this.row = startRow;
+        this.stepX = Math.abs(dx) > axisEpsilon ? (dx > 0 ? 1 : -1) : 0;
+        this.stepY = Math.abs(dy) > axisEpsilon ? (dy > 0 ? 1 : -1) : 0;
+        this.tDeltaX = this.stepX != 0 ? cellWidth / Math.abs(dx) : Double.POSITIVE_INFINITY;
+        this.tDeltaY = this.stepY != 0 ? cellHeight / Math.abs(dy) : Double.POSITIVE_INFINITY;
+        this.tMaxX = this.stepX != 0
+                ? (originX + (startColumn + (this.stepX > 0 ? 1 : 0)) * cellWidth - x0) / dx : Double.POSITIVE_INFINITY;
+        this.tMaxY = this.stepY != 0
+                ? (originY + (startRow + (this.stepY > 0 ? 1 : 0)) * cellHeight - y0) / dy : Double.POSITIVE_INFINITY;
+        this.remaining = Math.abs(cellOf(x0 + dx, originX, cellWidth) - startColumn)
+                + Math.abs(cellOf(y0 + dy, originY, cellHeight) - startRow);
+    }
+
+    /**
+     * Gets the column of the current cell.
+     *
+     * @return the column, which may be outside of the grid
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Gets the row of the current cell.
+     *
+     * @return the row, which may be outside of the grid
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Gets the fraction of the segment at which it leaves the current cell.
+     *
+     * @return the exit fraction, positive infinity if the segment doesn't move
+     */
+    public double exitT() {
+        return Math.min(this.tMaxX, this.tMaxY);
+    }
+
+    /**
+     * Moves to the next cell, across the nearer boundary (the row boundary on a
+     * tie), as long as the cell of the segment end was not reached.
+     *
+     * @return true if the walk moved, false once it reached the cell of the
+     *         segment end
+     */
+    public boolean next() {
+        if (this.remaining <= 0) {
+            return false;
+        }
+        this.remaining--;
+        if (this.tMaxX < this.tMaxY) {
+            this.column += this.stepX;
+            this.tMaxX += this.tDeltaX;
+        } else {
+            this.row += this.stepY;
+            this.tMaxY += this.tDeltaY;
+        }
+        return true;
+    }
+
+    /**
+     * Moves across every boundary at the exit fraction at once, so through a
+     * corner the walk moves diagonally.
+     *
+     * @return the faces (RayHit constants) of the new cell that were crossed
+     */
+    public int cross() {
+        double next = exitT();
+        int face = RayHit.NONE;
+        if (this.tMaxX == next) {
+            this.column += this.stepX;
+            this.tMaxX += this.tDeltaX;
+            face |= this.stepX > 0 ? RayHit.LEFT : RayHit.RIGHT;
+        }
+        if (this.tMaxY == next) {
+            this.row += this.stepY;
+            this.tMaxY += this.tDeltaY;
+            face |= this.stepY > 0 ? RayHit.TOP : RayHit.BOTTOM;
+        }
+        return face;
+    }
+}
@@ -0,0 +1,275 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import game.interfaces.Hitter;
+import game.objects.Block;
+
+/**
+ * The HitEventQueue class defers every hit event of a tick to the end of the
+ * tick. Blocks and balls get small integer ids, and a hit is stored as a
+ * (block id, ball id) pair in a ring buffer of ints, so posting an event
+ * allocates nothing. At the end of the tick the events are dispatched as one
+ * batch.
+ * While the balls move in parallel, every task writes into its own lane and the
+ * lanes are appended, in task order, to the lane of the game thread once the
+ * balls are moved. Since the tasks cover the balls in the same order as the
+ * serial loop, listeners (like BlockRemover and the counters) see the events in
+ * the same order no matter how many threads ran.
+ * A block or ball removed during the batch is dropped from the rest of it, so a
+ * brick hit by two balls in the same tick is only counted once. Its id is
+ * reused after the batch.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.3
+ * @since 2024-03-20
+ */
+public class HitEventQueue {
+    private final List<Ring> lanes = new ArrayList<Ring>();
+    private final Ring mainLane = new Ring();
+    private final ThreadLocal<Ring> currentLane = new ThreadLocal<Ring>();
+    private final Registry<Block> blocks = new Registry<Block>();
+    private final Registry<Hitter> balls = new Registry<Hitter>();
+
+    /**
+     * Makes sure there are at least the given number of lanes.
+     *
+     * @param count the number of lanes needed
+     */
+    public void ensureLanes(int count) {
+        while (this.lanes.size() < count) {
+            this.lanes.add(new Ring());
+        }
+    }
+
+    /**
+     * Makes the calling thread post its events into the given lane.
+     *
+     * @param lane the index of the lane
+     */
+    public void enterLane(int lane) {
+        this.currentLane.set(this.lanes.get(lane));
+    }
+
+    /**
+     * Makes the calling thread post its events into the lane of the game thread
+     * again.
+     */
+    public void exitLane() {
+        this.currentLane.remove();
+    }
+
+    /**
+     * Gives a block an id, so its hits can be queued.
+     *
+     * @param block the block to register
+     */
+    public synchronized void register(Block block) {
+        if (block.getHitId() < 0) {
+            block.setHitId(this.blocks.add(block));
+        }
+    }
+
+    /**
+     * Gives a ball an id, so its hits can be queued.
+     *
+     * @param ball the ball to register
+     */
+    public synchronized void register(Hitter ball) {
+        if (ball.getHitId() < 0) {
+            ball.setHitId(this.balls.add(ball));
+        }
+    }
+
+    /**
+     * Drops a block that left the game. Its queued events are skipped.
+     *
+     * @param block the block to drop
+     */
+    public synchronized void unregister(Block block) {
+        if (block.getHitId() >= 0) {
+            this.blocks.remove(block.getHitId());
+            block.setHitId(-1);
+        }
+    }
+
+    /**
+     * Drops a ball that left the game. Its queued events are skipped.
+     *
+     * @param ball the ball to drop
+     */
+    public synchronized void unregister(Hitter ball) {
+        if (ball.getHitId() >= 0) {
+            this.balls.remove(ball.getHitId());
+            ball.setHitId(-1);
+        }
+    }
+
+    /**
+     * Queues a hit into the lane of the calling thread.
+     *
+     * @param beingHit the block being hit
+     * @param hitter   the ball that hit the block
+     */
+    public void post(Block beingHit, Hitter hitter) {
+        if (beingHit.getHitId() < 0) {
+            register(beingHit);
+        }
+        if (hitter.getHitId() < 0) {
+            register(hitter);
+        }
+        Ring lane = this.currentLane.get();
+        if (lane == null) {
+            lane = this.mainLane;
+        }
+        lane.push(beingHit.getHitId(), hitter.getHitId());
+    }
+
+    /**
+     * Moves the events of the lanes, lane by lane, to the end of the lane of
+     * the game thread, as if the game thread had posted them.
+     */
+    public void mergeLanes() {
+        for (int i = 0; i < this.lanes.size(); i++) {
+            Ring lane = this.lanes.get(i);
+            while (!lane.isEmpty()) {
+                this.mainLane.push(lane.peekFirst(), lane.peekSecond());
+                lane.pop();
+            }
+        }
+    }
+
+    /**
+     * Dispatches the queued events, lane by lane, and empties the lanes. Events
+     * posted by the listeners themselves are dispatched in the same batch.
+     */
+    public void flush() {
+        for (int i = 0; i < this.lanes.size(); i++) {
+            drain(this.lanes.get(i));
+        }
+        drain(this.mainLane);
+        synchronized (this) {
+            this.blocks.releaseRemoved();
+            this.balls.releaseRemoved();
+        }
+    }
+
+    private void drain(Ring lane) {
+        while (!lane.isEmpty()) {
+            Block block = this.blocks.get(lane.peekFirst());
+            Hitter ball = this.balls.get(lane.peekSecond());
+            lane.pop();
+            if (block != null && ball != null) {
+                block.dispatchHit(ball);
+            }
+        }
+    }
+
+    /**
+     * A growable ring buffer of (block id, ball id) pairs.
+     */
+    private static class Ring {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private int[] data = new int[INITIAL_CAPACITY];
+        private int head = 0;
+        private int tail = 0;
+
+        boolean isEmpty() {
+            return this.head == this.tail;
+        }
+
+        void push(int first, int second) {
+            if (this.tail - this.head == this.data.length) {
+                grow();
+            }
+            int mask = this.data.length - 1;
+            this.data[this.tail & mask] = first;
+            this.data[(this.tail + 1) & mask] = second;
+            this.tail += 2;
+        }
+
+        int peekFirst() {
+            return this.data[this.head & (this.data.length - 1)];
+        }
+
+        int peekSecond() {
+            return this.data[(this.head + 1) & (this.data.length - 1)];
+        }
+
+        void pop() {
+            this.head += 2;
+            if (this.head == this.tail) {
+                this.head = 0;
+                this.tail = 0;
+            }
+        }
+
+        private void grow() {
+            int[] bigger = new int[this.data.length * 2];
+            int mask = this.data.length - 1;
+            for (int i = this.head; i != this.tail; i++) {
+                bigger[i - this.head] = this.data[i & mask];
+            }
+            this.tail -= this.head;
+            this.head = 0;
+            this.data = bigger;
+        }
+    }
+
+    /**
+     * Maps small integer ids to objects. Ids of removed objects are reused only
+     * after {@link #releaseRemoved()}, so a stale id in a queued event never
+     * points at a new object.
+     *
+     * @param <T> the type of the objects
+     */
+    private static class Registry<T> {
+        private static final int INITIAL_CAPACITY = 64;
+
+        private Object[] items = new Object[INITIAL_CAPACITY];
+        private int count = 0;
+        private int[] free = new int[INITIAL_CAPACITY];
+        private int freeCount = 0;
+        private int[] removed = new int[INITIAL_CAPACITY];
+        private int removedCount = 0;
+
+        int add(T item) {
+            int id;
+            if (this.freeCount > 0) {
+                id = this.free[--this.freeCount];
+            } else {
+                if (this.count == this.items.length) {
+                    this.items = Arrays.copyOf(this.items, this.count * 2);
+                }
+                id = this.count++;
+            }
+            this.items[id] = item;
+            return id;
+        }
+
+        @SuppressWarnings("unchecked")
+        T get(int id) {
+            return (T) this.items[id];
+        }
+
+        void remove(int id) {
+            this.items[id] = null;
+            if (this.removedCount == this.removed.length) {
+                this.removed = Arrays.copyOf(this.removed, this.removedCount * 2);
+            }
+            this.removed[this.removedCount++] = id;
+        }
+
+        void releaseRemoved() {
+            if (this.free.length < this.freeCount + this.removedCount) {
+                this.free = Arrays.copyOf(this.free, this.freeCount + this.removedCount);
+            }
+            System.arraycopy(this.removed, 0, this.free, this.freeCount, this.removedCount);
+            this.freeCount += this.removedCount;
+            this.removedCount = 0;
+        }
+    }
+}
@@ -0,0 +1,495 @@
+package game;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import biuoop.DrawSurface;
+
+import gui.Point;
+import gui.shapes.Rectangle;
+
+/**
+ * The LevelFile class is a brick layout stored in a versioned binary file and
+ * read through a read-only memory map. Nothing is parsed up front besides the
+ * header and the palette: every brick is read straight from the mapped file
+ * when it is needed, so many game instances (or processes) can share one level
+ * without building it again.
+ * <p>
+ * File layout (big-endian):
+ * <ul>
+ * <li>header: magic, version, flags, brick count, palette size, palette offset,
+ * brick table offset, index offset, then as floats the level width and height
+ * and the bounds (min x, min y, max x, max y) of the bricks;</li>
+ * <li>palette: one RGB int per color;</li>
+ * <li>brick table: per brick the floats x, y, width, height and the int palette
+ * index of its color;</li>
+ * <li>optional spatial index: the float cell size, the int columns, rows and id
+ * count, then the start of every cell in the id list (columns * rows + 1 ints)
+ * and the id list itself, in brick order within each cell.</li>
+ * </ul>
+ * A file without an index gets one built in memory when it is opened. Opening a
+ * file checks that every table of the header lies within the file, so a
+ * truncated or corrupt file fails to open instead of failing on a later read.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.3
+ * @since 2024-03-30
+ */
+public class LevelFile {
+    /** The version written by this class. */
+    public static final int VERSION = 1;
+    /** The default cell size of the spatial index. */
+    public static final double DEFAULT_CELL_SIZE = 50;
+
+    private static final int MAGIC = 0x42524B4C;
+    private static final int FLAG_INDEX = 1;
+    private static final int HEADER_SIZE = 56;
+    private static final int BRICK_SIZE = 20;
+    private static final int MAX_CELLS = 1 << 22;
+    private static final String CORRUPT = "Corrupt level file";
+
+    private final ByteBuffer buffer;
+    private final int brickCount;
+    private final int bricksOffset;
+    private final Color[] palette;
+    private final double width;
+    private final double height;
+    private final Rectangle bounds;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final IntBuffer cellStarts;
+    private final IntBuffer cellBricks;
+
+    private LevelFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a level file");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Unsupported level version " + version);
+        }
+        int flags = buffer.getInt(8);
+        this.brickCount = buffer.getInt(12);
+        int paletteSize = buffer.getInt(16);
+        int paletteOffset = buffer.getInt(20);
+        this.bricksOffset = buffer.getInt(24);
+        int indexOffset = buffer.getInt(28);
+        int capacity = buffer.capacity();
+        checkRange(paletteOffset, paletteSize, Integer.BYTES, capacity);
+        checkRange(this.bricksOffset, this.brickCount, BRICK_SIZE, capacity);
+        this.width = buffer.getFloat(32);
+        this.height = buffer.getFloat(36);
+        double minX = buffer.getFloat(40);
+        double minY = buffer.getFloat(44);
+        this.bounds = new Rectangle(new Point(minX, minY), buffer.getFloat(48) - minX,
+                buffer.getFloat(52) - minY, Color.BLACK);
+
+        this.palette = new Color[paletteSize];
+        for (int i = 0; i < paletteSize; i++) {
+            this.palette[i] = new Color(buffer.getInt(paletteOffset + i * Integer.BYTES));
+        }
+
+        if ((flags & FLAG_INDEX) != 0) {
+            checkRange(indexOffset, 4, Integer.BYTES, capacity);
+            this.cellSize = buffer.getFloat(indexOffset);
+            this.columns = buffer.getInt(indexOffset + 4);
+            this.rows = buffer.getInt(indexOffset + 8);
+            int ids = buffer.getInt(indexOffset + 12);
+            checkCells(this.cellSize, this.columns, this.rows);
+            int startsOffset = indexOffset + 16;
+            int cells = this.columns * this.rows;
+            checkRange(startsOffset, cells + 1, Integer.BYTES, capacity);
+            int idsOffset = startsOffset + (cells + 1) * Integer.BYTES;
+            checkRange(idsOffset, ids, Integer.BYTES, capacity);
+            this.cellStarts = slice(buffer, startsOffset, cells + 1);
+            this.cellBricks = slice(buffer, idsOffset, ids);
+            // The id list must be exactly the one the cell starts span.
+            if (this.cellStarts.get(0) != 0 || this.cellStarts.get(cells) != ids) {
+                throw new IOException(CORRUPT);
+            }
+        } else {
+            this.cellSize = DEFAULT_CELL_SIZE;
+            this.columns = cellCount(this.width, this.cellSize);
+            this.rows = cellCount(this.height, this.cellSize);
+            checkCells(this.cellSize, this.columns, this.rows);
+            double[] boxes = new double[this.brickCount * 4];
+            for (int i = 0; i < this.brickCount; i++) {
+                boxes[i * 4] = getX(i);
+                boxes[i * 4 + 1] = getY(i);
+                boxes[i * 4 + 2] = getX(i) + getWidth(i);
+                boxes[i * 4 + 3] = getY(i) + getHeight(i);
+            }
+            int[][] index = buildIndex(boxes, this.columns, this.rows, this.cellSize);
+            this.cellStarts = IntBuffer.wrap(index[0]);
+            this.cellBricks = IntBuffer.wrap(index[1]);
+        }
+    }
+
+    /**
+     * Checks that a table of count entries of the given size starting at offset
+     * lies within the file.
+     *
+     * @param offset    the offset of the table
+     * @param count     the number of entries
+     * @param entrySize the size of an entry in bytes
+     * @param capacity  the size of the file
+     * @throws IOException if the table is negative or runs past the end of the
+     *                     file
+     */
+    private static void checkRange(int offset, int count, int entrySize, int capacity) throws IOException {
+        if (offset < 0 || count < 0 || (long) offset + (long) count * entrySize > capacity) {
+            throw new IOException(CORRUPT);
+        }
+    }
+
+    private static void checkCells(double cellSize, int columns, int rows) throws IOException {
+        if (!(cellSize > 0) || Double.isInfinite(cellSize) || columns <= 0 || rows <= 0
+                || (long) columns * rows > MAX_CELLS) {
+            throw new IOException(CORRUPT);
+        }
+    }
+
+    private static IntBuffer slice(ByteBuffer buffer, int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length * Integer.BYTES);
+        return view.slice().asIntBuffer();
+    }
+
+    /**
+     * Maps a level file into memory, read-only.
+     *
+     * @param path the file to open
+     * @return the level
+     * @throws IOException if the file can't be read or isn't a level file
+     */
+    public static LevelFile open(String path) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new LevelFile(mapped);
+        }
+    }
+
+    /**
+     * Gets a checksum of the whole file, so a level can be told apart from
+     * another one at the same path.
+     *
+     * @return the CRC-32 of the file's bytes
+     */
+    public long checksum() {
+        CRC32 crc = new CRC32();
+        ByteBuffer bytes = this.buffer.duplicate();
+        bytes.clear();
+        crc.update(bytes);
+        return crc.getValue();
+    }
+
+    /**
+     * Writes a level file.
+     *
+     * @param path     the file to write
+     * @param width    the width of the level
+     * @param height   the height of the level
+     * @param bricks   the bricks, in the order their ties are resolved
+     * @param cellSize the cell size of the prebuilt spatial index, or 0 to write
+     *                 no index
+     * @throws IOException if the file can't be written
+     */
+    public static void write(String path, double width, double height, List<Rectangle> bricks, double cellSize)
+            throws IOException {
+        List<Color> colors = new ArrayList<Color>();
+        int[] colorIndexes = new int[bricks.size()];
+        double[] boxes = new double[bricks.size() * 4];
+        double minX = Double.POSITIVE_INFINITY;
+        double minY = Double.POSITIVE_INFINITY;
+        double maxX = Double.NEGATIVE_INFINITY;
+        double maxY = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < bricks.size(); i++) {
+            Rectangle brick = bricks.get(i);
+            int color = colors.indexOf(brick.getColor());
+            if (color < 0) {
+                color = colors.size();
+                colors.add(brick.getColor());
+            }
+            colorIndexes[i] = color;
+            boxes[i * 4] = brick.getStartX();
+            boxes[i * 4 + 1] = brick.getStartY();
+            boxes[i * 4 + 2] = brick.getEndX();
+            boxes[i * 4 + 3] = brick.getEndY();
+            minX = Math.min(minX, brick.getStartX());
+            minY = Math.min(minY, brick.getStartY());
+            maxX = Math.max(maxX, brick.getEndX());
+            maxY = Math.max(maxY, brick.getEndY());
+        }
+        if (bricks.isEmpty()) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+
+        int[][] index = null;
+        int indexColumns = 0;
+        int indexRows = 0;
+        if (cellSize > 0) {
+            indexColumns = cellCount(width, cellSize);
+            indexRows = cellCount(height, cellSize);
+            index = buildIndex(boxes, indexColumns, indexRows, cellSize);
+        }
+
+        int paletteOffset = HEADER_SIZE;
+        int bricksOffset = paletteOffset + colors.size() * Integer.BYTES;
+        int indexOffset = bricksOffset + bricks.size() * BRICK_SIZE;
+        int size = indexOffset;
+        if (index != null) {
+            size += 16 + (index[0].length + index[1].length) * Integer.BYTES;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(size);
+        out.putInt(MAGIC).putInt(VERSION).putInt(index != null ? FLAG_INDEX : 0).putInt(bricks.size())
+                .putInt(colors.size()).putInt(paletteOffset).putInt(bricksOffset)
+                .putInt(index != null ? indexOffset : 0);
+        out.putFloat((float) width).putFloat((float) height);
+        out.putFloat((float) minX).putFloat((float) minY).putFloat((float) maxX).putFloat((float) maxY);
+        for (Color color : colors) {
+            out.putInt(color.getRGB());
+        }
+        for (int i = 0; i < bricks.size(); i++) {
+            Rectangle brick = bricks.get(i);
+            out.putFloat((float) brick.getStartX()).putFloat((float) brick.getStartY());
+            out.putFloat((float) brick.getWidth()).putFloat((float) brick.getHeight());
+            out.putInt(colorIndexes[i]);
+        }
+        if (index != null) {
+            out.putFloat((float) cellSize).putInt(indexColumns).putInt(indexRows).putInt(index[1].length);
+            out.asIntBuffer().put(index[0]).put(index[1]);
+        }
+        out.rewind();
+
+        try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+        }
+    }
+
+    private static int cellCount(double length, double cellSize) {
+        return Math.max(1, (int) Math.ceil(length / cellSize));
+    }
+
+    /**
+     * Builds the cell lists of the spatial index, as a compressed row layout: the
+     * start of every cell, then the brick ids of all cells.
+     *
+     * @param boxes    min x, min y, max x and max y of every brick, in brick order
+     * @param columns  the number of columns of the index
+     * @param rows     the number of rows of the index
+     * @param cellSize the side length of a cell
+     * @return the cell starts and the id list
+     */
+    private static int[][] buildIndex(double[] boxes, int columns, int rows, double cellSize) {
+        if ((long) columns * rows > MAX_CELLS) {
+            throw new IllegalArgumentException("Index of " + columns + "x" + rows + " cells is too large");
+        }
+        int count = boxes.length / 4;
+        int[] starts = new int[columns * rows + 1];
+        int[] ids = null;
+        // The first pass counts the bricks of every cell, the second one fills them in.
+        for (int pass = 0; pass < 2; pass++) {
+            int[] fill = pass == 0 ? null : starts.clone();
+            for (int i = 0; i < count; i++) {
+                int minCol = clamp((int) Math.floor(boxes[i * 4] / cellSize), columns);
+                int minRow = clamp((int) Math.floor(boxes[i * 4 + 1] / cellSize), rows);
+                int maxCol = clamp((int) Math.floor(boxes[i * 4 + 2] / cellSize), columns);
+                int maxRow = clamp((int) Math.floor(boxes[i * 4 + 3] / cellSize), rows);
+                for (int r = minRow; r <= maxRow; r++) {
+                    for (int c = minCol; c <= maxCol; c++) {
+                        if (pass == 0) {
+                            starts[c + r * columns + 1]++;
+                        } else {
+                            ids[fill[c + r * columns]++] = i;
+                        }
+                    }
+                }
+            }
+            if (pass == 0) {
+                for (int c = 0; c < columns * rows; c++) {
+                    starts[c + 1] += starts[c];
+                }
+                ids = new int[starts[columns * rows]];
+            }
+        }
+        return new int[][] {starts, ids};
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.min(Math.max(value, 0), size - 1);
+    }
+
+    /**
+     * Gets the number of bricks.
+     *
+     * @return the number of bricks
+     */
+    public int getBrickCount() {
+        return this.brickCount;
+    }
+
+    /**
+     * Gets the x-coordinate of the upper-left corner of a brick.
+     *
+     * @param i the brick
+     * @return the x-coordinate
+     */
+    public double getX(int i) {
+        return this.buffer.getFloat(this.bricksOffset + i * BRICK_SIZE);
+    }
+
+    /**
+     * Gets the y-coordinate of the upper-left corner of a brick.
+     *
+     * @param i the brick
+     * @return the y-coordinate
+     */
+    public double getY(int i) {
+        return this.buffer.getFloat(this.bricksOffset + i * BRICK_SIZE + 4);
+    }
+
+    /**
+     * Gets the width of a brick.
+     *
+     * @param i the brick
+     * @return the width
+     */
+    public double getWidth(int i) {
+        return this.buffer.getFloat(this.bricksOffset + i * BRICK_SIZE + 8);
+    }
+
+    /**
+     * Gets the height of a brick.
+     *
+     * @param i the brick
+     * @return the height
+     */
+    public double getHeight(int i) {
+        return this.buffer.getFloat(this.bricksOffset + i * BRICK_SIZE + 12);
+    }
+
+    /**
+     * Gets the color of a brick.
+     *
+     * @param i the brick
+     * @return the color
+     */
+    public Color getColor(int i) {
+        return this.palette[this.buffer.getInt(this.bricksOffset + i * BRICK_SIZE + 16)];
+    }
+
+    /**
+     * Gets a new rectangle covering a brick, in the brick's color.
+     *
+     * @param i the brick
+     * @return the rectangle
+     */
+    public Rectangle getRectangle(int i) {
+        return new Rectangle(new Point(getX(i), getY(i)), getWidth(i), getHeight(i), getColor(i));
+    }
+
+    /**
+     * Draws a brick the way the rectangle of the brick is drawn, without making
+     * the rectangle.
+     *
+     * @param d the DrawSurface to draw on
+     * @param i the brick
+     */
+    public void drawBrick(DrawSurface d, int i) {
+        Rectangle.drawBox(d, (int) getX(i), (int) getY(i), (int) getWidth(i), (int) getHeight(i), getColor(i));
+    }
+
+    /**
+     * Gets the width of the level.
+     *
+     * @return the width
+     */
+    public double getLevelWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets the height of the level.
+     *
+     * @return the height
+     */
+    public double getLevelHeight() {
+        return this.height;
+    }
+
+    /**
+     * Gets the rectangle bounding every brick.
+     *
+     * @return the bounds
+     */
+    public Rectangle getBounds() {
+        return this.bounds;
+    }
+
+    /**
+     * Gets the side length of a cell of the spatial index.
+     *
+     * @return the cell size
+     */
+    public double getCellSize() {
+        return this.cellSize;
+    }
+
+    /**
+     * Gets the number of columns of the spatial index.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Gets the number of rows of the spatial index.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the position in the id list where the bricks of a cell start. The
+     * bricks of cell c are the ids from cellStart(c) to cellStart(c + 1).
+     *
+     * @param cell the cell, column + row * columns
+     * @return the start of the cell's bricks
+     */
+    public int cellStart(int cell) {
+        return this.cellStarts.get(cell);
+    }
+
+    /**
+     * Gets a brick id from the id list of the spatial index.
+     *
+     * @param position the position in the id list
+     * @return the brick id
+     */
+    public int cellBrick(int position) {
+        return this.cellBricks.get(position);
+    }
+}
@@ -0,0 +1,97 @@
+package game;
+
+/**
+ * The Match class is a single headless game hosted by a MatchHost, together
+ * with its scheduling state. A match is only ever run by one host thread at a
+ * time; its fields are published to the other threads through the host's run
+ * queue.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-08
+ */
+public class Match {
+    private final int id;
+    private final Game game;
+    private long slices = 0;
+    private long startNanos = 0;
+    private long endNanos = 0;
+    private volatile boolean finished = false;
+
+    /**
+     * Constructs a match of an initialized headless game.
+     *
+     * @param id   the id of the match in its host
+     * @param game the game
+     */
+    Match(int id, Game game) {
+        this.id = id;
+        this.game = game;
+    }
+
+    /**
+     * Gets the id of the match in its host.
+     *
+     * @return the id
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Gets the game of the match.
+     *
+     * @return the game
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Checks if the match is over.
+     *
+     * @return true if the game ended or ran out of ticks, false otherwise
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
+    /**
+     * Gets the number of time slices the match was given.
+     *
+     * @return the number of slices
+     */
+    public long getSlices() {
+        return this.slices;
+    }
+
+    /**
+     * Gets the time from the first slice of the match until it finished.
+     *
+     * @return the duration in nanoseconds, or 0 if it didn't finish
+     */
+    public long getDurationNanos() {
+        return this.finished ? this.endNanos - this.startNanos : 0;
+    }
+
+    /**
+     * Records that the match is given a slice.
+     *
+     * @param now the current time in nanoseconds
+     */
+    void beginSlice(long now) {
+        if (this.slices++ == 0) {
+            this.startNanos = now;
+        }
+    }
+
+    /**
+     * Records that the match is over.
+     *
+     * @param now the current time in nanoseconds
+     */
+    void finish(long now) {
+        this.endNanos = now;
+        this.finished = true;
+    }
+}
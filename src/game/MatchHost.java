@@ -0,0 +1,226 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import game.informative.LatencyHistogram;
+
+/**
+ * The MatchHost class runs many independent headless games in one JVM, for bot
+ * tournaments and load tests. Instead of a thread per game, a few host threads
+ * share a single run queue: a thread takes the match at the head, runs it for a
+ * time slice of a fixed number of ticks and puts it back at the tail, so every
+ * match gets the same share of the threads no matter how many there are. A
+ * match leaves the queue when its game is over or has used its tick budget.
+ * The host measures every tick, and reports the matches and ticks per second
+ * and the tick latency percentiles of the whole run.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-08
+ */
+public class MatchHost {
+    private static final long IDLE_NANOS = 50_000;
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private final int threads;
+    private final int sliceTicks;
+    private final List<Match> matches = new ArrayList<Match>();
+    private final ConcurrentLinkedQueue<Match> runQueue = new ConcurrentLinkedQueue<Match>();
+    private final AtomicInteger unfinished = new AtomicInteger();
+    private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+    private LatencyHistogram tickLatency = new LatencyHistogram();
+    private long ticks = 0;
+    private long elapsedNanos = 0;
+
+    /**
+     * Constructs a host.
+     *
+     * @param threads    the number of host threads
+     * @param sliceTicks the number of ticks a match runs before the next match
+     *                   in the queue gets its turn
+     */
+    public MatchHost(int threads, int sliceTicks) {
+        this.threads = Math.max(1, threads);
+        this.sliceTicks = Math.max(1, sliceTicks);
+    }
+
+    /**
+     * Adds a match. The game must be headless and initialized.
+     *
+     * @param game       the game of the match
+     * @param tickBudget the maximal number of ticks the match may take
+     * @return the match
+     */
+    public synchronized Match submit(Game game, long tickBudget) {
+        if (!game.isHeadless()) {
+            throw new IllegalArgumentException("A hosted game must be headless");
+        }
+        game.setMaxTicks(tickBudget);
+        Match match = new Match(this.matches.size(), game);
+        this.matches.add(match);
+        this.runQueue.add(match);
+        this.unfinished.incrementAndGet();
+        return match;
+    }
+
+    /**
+     * Gets the matches, in the order they were submitted.
+     *
+     * @return the matches
+     */
+    public synchronized List<Match> getMatches() {
+        return new ArrayList<Match>(this.matches);
+    }
+
+    /**
+     * Runs the host threads until every submitted match is over.
+     */
+    public void run() {
+        List<Thread> workers = new ArrayList<Thread>();
+        LatencyHistogram[] latencies = new LatencyHistogram[this.threads];
+        long[][] counts = new long[this.threads][1];
+        long start = System.nanoTime();
+        for (int i = 0; i < this.threads; i++) {
+            LatencyHistogram latency = new LatencyHistogram();
+            long[] count = counts[i];
+            latencies[i] = latency;
+            Thread worker = new Thread(() -> work(latency, count), "match-host-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        this.elapsedNanos += System.nanoTime() - start;
+        for (int i = 0; i < this.threads; i++) {
+            this.tickLatency.add(latencies[i]);
+            this.ticks += counts[i][0];
+        }
+        Throwable error = this.failure.get();
+        if (error != null) {
+            throw new RuntimeException("A match failed", error);
+        }
+    }
+
+    /**
+     * The loop of a host thread: runs a slice of the match at the head of the
+     * queue and puts it back at the tail, until no match is left.
+     *
+     * @param latency the histogram of the ticks run by this thread
+     * @param count   the number of ticks run by this thread, in its first slot
+     */
+    private void work(LatencyHistogram latency, long[] count) {
+        while (this.unfinished.get() > 0 && this.failure.get() == null) {
+            Match match = this.runQueue.poll();
+            if (match == null) {
+                // Every match left is running on another thread.
+                LockSupport.parkNanos(IDLE_NANOS);
+                continue;
+            }
+            Game game = match.getGame();
+            match.beginSlice(System.nanoTime());
+            long before = game.getTicks();
+            boolean going = true;
+            try {
+                for (int i = 0; i < this.sliceTicks && going; i++) {
+                    long tickStart = System.nanoTime();
+                    going = game.advance();
+                    latency.record(System.nanoTime() - tickStart);
+                }
+            } catch (RuntimeException | Error e) {
+                this.failure.compareAndSet(null, e);
+                return;
+            }
+            count[0] += game.getTicks() - before;
+            if (going) {
+                this.runQueue.add(match);
+            } else {
+                match.finish(System.nanoTime());
+                this.unfinished.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of matches that are over.
+     *
+     * @return the number of finished matches
+     */
+    public synchronized int getFinishedMatches() {
+        int finished = 0;
+        for (Match match : this.matches) {
+            if (match.isFinished()) {
+                finished++;
+            }
+        }
+        return finished;
+    }
+
+    /**
+     * Gets the number of ticks run by the host.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Gets the wall time the host ran.
+     *
+     * @return the duration in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return this.elapsedNanos;
+    }
+
+    /**
+     * Gets the number of matches finished per second of wall time.
+     *
+     * @return the matches per second
+     */
+    public double getMatchesPerSecond() {
+        return getFinishedMatches() * 1e9 / Math.max(1, this.elapsedNanos);
+    }
+
+    /**
+     * Gets the number of ticks run per second of wall time, over all matches.
+     *
+     * @return the ticks per second
+     */
+    public double getTicksPerSecond() {
+        return this.ticks * 1e9 / Math.max(1, this.elapsedNanos);
+    }
+
+    /**
+     * Gets the latency histogram of the single ticks, over all matches.
+     *
+     * @return the tick latency histogram
+     */
+    public LatencyHistogram getTickLatency() {
+        return this.tickLatency;
+    }
+
+    /**
+     * Describes the throughput and the tick latency of the run.
+     *
+     * @return a one-line summary
+     */
+    public String summary() {
+        return String.format("matches: %d, threads: %d, matches/s: %.1f, ticks/s: %.0f, "
+                + "tick p50 %.1fus  p99 %.1fus  max %.1fus", getFinishedMatches(), this.threads,
+                getMatchesPerSecond(), getTicksPerSecond(), this.tickLatency.getPercentile(50) / NANOS_PER_MICRO,
+                this.tickLatency.getPercentile(99) / NANOS_PER_MICRO, this.tickLatency.getMax() / NANOS_PER_MICRO);
+    }
+}
@@ -0,0 +1,465 @@
+package game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.interfaces.Collidable;
+import gui.RayHit;
+import gui.shapes.BoxBatch;
+import gui.shapes.BoxKernel;
+import gui.shapes.Rectangle;
+
+/**
+ * The SpatialGrid class is a uniform grid broad phase over a set of collidables.
+ * Every collidable is registered in each cell its collision rectangle overlaps,
+ * so a trajectory query only walks the cells the segment crosses. Collidables
+ * that would cover too many cells are kept in a list tested on every query.
+ * The fixed boxes are kept per cell as arrays of their bounds, tested a cell at
+ * a time by a BoxKernel. Once frozen, the fixed boxes are packed into a single
+ * batch, and the other collidables are tested on every query instead of being
+ * binned.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.8
+ * @since 2024-03-10
+ */
+public class SpatialGrid {
+    private static final int MAX_CELLS_PER_ENTRY = 64;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final Cell[] cells;
+    private final List<Entry> oversized = new ArrayList<Entry>();
+    private final Map<Collidable, Entry> entries = new IdentityHashMap<Collidable, Entry>();
+    private int nextOrder = 0;
+    private BoxKernel kernel = BoxKernel.best();
+    private final ThreadLocal<Query> queries = ThreadLocal.withInitial(Query::new);
+
+    private boolean frozen = false;
+    private BoxBatch frozenBoxes = null;
+    private Entry[] frozenEntries = null;
+    private int[] cellStart = null;
+    private BoxBatch wideBoxes = null;
+    private Entry[] wideEntries = null;
+    private final List<Entry> dynamic = new ArrayList<Entry>();
+
+    /**
+     * Constructs a grid covering the area from (0, 0) to (width, height).
+     * Collidables outside of that area are clamped into the border cells.
+     *
+     * @param width    the width of the covered area
+     * @param height   the height of the covered area
+     * @param cellSize the side length of a single square cell
+     */
+    public SpatialGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cells = new Cell[this.columns * this.rows];
+        for (int i = 0; i < this.cells.length; i++) {
+            this.cells[i] = new Cell();
+        }
+    }
+
+    /**
+     * Sets the kernel that tests the fixed boxes of a cell.
+     *
+     * @param boxKernel the kernel
+     */
+    public void setKernel(BoxKernel boxKernel) {
+        this.kernel = boxKernel;
+    }
+
+    /**
+     * Gets the kernel that tests the fixed boxes of a cell.
+     *
+     * @return the kernel
+     */
+    public BoxKernel getKernel() {
+        return this.kernel;
+    }
+
+    /**
+     * Registers a collidable in every cell its collision rectangle overlaps. In a
+     * frozen grid, a collidable that is not a fixed box is only kept in the list
+     * tested on every query.
+     *
+     * @param c the collidable to add
+     */
+    public void add(Collidable c) {
+        Entry entry = new Entry(c, this.nextOrder++);
+        this.entries.put(c, entry);
+        if (this.frozen && !entry.box) {
+            this.dynamic.add(entry);
+            return;
+        }
+        insert(entry);
+    }
+
+    /**
+     * Freezes the grid: packs the fixed boxes it holds into flat batches, and
+     * moves the other collidables to the list tested on every query. Freezing a
+     * frozen grid does nothing.
+     */
+    public void freeze() {
+        if (this.frozen) {
+            return;
+        }
+        int total = 0;
+        for (Cell cell : this.cells) {
+            total += cell.boxes.size();
+        }
+        // The cells keep their boxes in the order they were added, which the packed ranges keep too.
+        this.cellStart = new int[this.cells.length + 1];
+        this.frozenBoxes = new BoxBatch(total);
+        this.frozenEntries = new Entry[total];
+        for (int i = 0; i < this.cells.length; i++) {
+            Cell cell = this.cells[i];
+            this.cellStart[i] = this.frozenBoxes.size();
+            for (int k = 0; k < cell.boxes.size(); k++) {
+                Entry entry = cell.boxEntries[k];
+                this.frozenEntries[this.frozenBoxes.add(entry.collidable.getCollisionRectangle())] = entry;
+            }
+            cell.clear();
+        }
+        this.cellStart[this.cells.length] = total;
+
+        List<Entry> ordered = new ArrayList<Entry>(this.entries.values());
+        ordered.sort((a, b) -> Integer.compare(a.order, b.order));
+        int wide = 0;
+        for (Entry entry : ordered) {
+            if (entry.box && entry.oversized) {
+                wide++;
+            }
+        }
+        this.wideBoxes = new BoxBatch(wide);
+        this.wideEntries = new Entry[wide];
+        for (Entry entry : ordered) {
+            if (!entry.box) {
+                this.dynamic.add(entry);
+            } else if (entry.oversized) {
+                this.wideEntries[this.wideBoxes.add(entry.collidable.getCollisionRectangle())] = entry;
+            }
+            entry.frozen = entry.box;
+        }
+        this.oversized.clear();
+        this.frozen = true;
+    }
+
+    /**
+     * Checks if the grid was frozen.
+     *
+     * @return true if the fixed boxes are packed, false otherwise
+     */
+    public boolean isFrozen() {
+        return this.frozen;
+    }
+
+    /**
+     * Removes a collidable from the grid.
+     *
+     * @param c the collidable to remove
+     */
+    public void remove(Collidable c) {
+        Entry entry = this.entries.remove(c);
+        if (entry != null) {
+            erase(entry);
+        }
+    }
+
+    /**
+     * Re-reads the collision rectangle of a collidable that moved and moves it to
+     * the matching cells. Does nothing if the collidable still covers the same
+     * cells, if it is a fixed box, or if the grid is frozen and it is tested on
+     * every query anyway.
+     *
+     * @param c the collidable that moved
+     */
+    public void update(Collidable c) {
+        Entry entry = this.entries.get(c);
+        if (entry == null || entry.box || this.frozen) {
+            return;
+        }
+        Rectangle rect = c.getCollisionRectangle();
+        if (!entry.oversized && entry.minCol == column(rect.getStartX()) && entry.maxCol == column(rect.getEndX())
+                && entry.minRow == row(rect.getStartY()) && entry.maxRow == row(rect.getEndY())) {
+            return;
+        }
+        erase(entry);
+        insert(entry);
+    }
+
+    /**
+     * Finds the closest collidable crossed by the segment from (x0, y0) to
+     * (x0 + dx, y0 + dy), walking only the cells the segment crosses. Ties are
+     * resolved in favour of the collidable that was added first, exactly like a
+     * linear scan over the insertion order. Allocates nothing.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the result to fill with the hit fraction and face
+     * @return the closest collidable, or null if there is none
+     */
+    public Collidable closest(double x0, double y0, double dx, double dy, RayHit hit) {
+        Query query = this.queries.get();
+        query.reset();
+
+        for (int i = 0; i < this.oversized.size(); i++) {
+            Entry entry = this.oversized.get(i);
+            double t = entry.collidable.rayIntersection(x0, y0, dx, dy);
+            query.offer(t, entry);
+        }
+        if (this.frozen) {
+            for (int i = 0; i < this.dynamic.size(); i++) {
+                Entry entry = this.dynamic.get(i);
+                double t = entry.collidable.rayIntersection(x0, y0, dx, dy);
+                query.offer(t, entry);
+            }
+            int k = this.kernel.nearest(this.wideBoxes, x0, y0, dx, dy);
+            if (k >= 0) {
+                Entry entry = this.wideEntries[k];
+                double t = this.wideBoxes.rayIntersection(k, x0, y0, dx, dy);
+                query.offer(t, entry);
+            }
+        }
+
+        // Amanatides & Woo walk, bounded by the number of cells between the end points.
+        GridWalk walk = query.walk;
+        walk.start(this.cellSize, x0, y0, dx, dy);
+        int lastIndex = -1;
+        do {
+            int index = clampColumn(walk.getColumn()) + clampRow(walk.getRow()) * this.columns;
+            if (index != lastIndex) {
+                if (this.frozen && this.cellStart[index] < this.cellStart[index + 1]) {
+                    int k = this.kernel.nearest(this.frozenBoxes, this.cellStart[index], this.cellStart[index + 1],
+                            x0, y0, dx, dy);
+                    if (k >= 0) {
+                        Entry entry = this.frozenEntries[k];
+                        double t = this.frozenBoxes.rayIntersection(k, x0, y0, dx, dy);
+                        query.offer(t, entry);
+                    }
+                }
+                Cell cell = this.cells[index];
+                if (cell.boxes.size() > 0) {
+                    int k = this.kernel.nearest(cell.boxes, x0, y0, dx, dy);
+                    if (k >= 0) {
+                        Entry entry = cell.boxEntries[k];
+                        double t = cell.boxes.rayIntersection(k, x0, y0, dx, dy);
+                        query.offer(t, entry);
+                    }
+                }
+                for (int j = 0; j < cell.others.size(); j++) {
+                    Entry entry = cell.others.get(j);
+                    double t = entry.collidable.rayIntersection(x0, y0, dx, dy);
+                    query.offer(t, entry);
+                }
+                lastIndex = index;
+            }
+            // Nothing in a later cell can be closer than a hit before this cell's exit.
+            if (query.best != null && query.bestT < walk.exitT()) {
+                break;
+            }
+        } while (walk.next());
+
+        if (query.best == null) {
+            hit.reset();
+            return null;
+        }
+        query.best.collidable.rayCast(x0, y0, dx, dy, hit);
+        return query.best.collidable;
+    }
+
+    private void insert(Entry entry) {
+        Rectangle rect = entry.collidable.getCollisionRectangle();
+        entry.minCol = column(rect.getStartX());
+        entry.maxCol = column(rect.getEndX());
+        entry.minRow = row(rect.getStartY());
+        entry.maxRow = row(rect.getEndY());
+        int covered = (entry.maxCol - entry.minCol + 1) * (entry.maxRow - entry.minRow + 1);
+        entry.oversized = covered > MAX_CELLS_PER_ENTRY;
+
+        if (entry.oversized) {
+            this.oversized.add(entry);
+            return;
+        }
+        for (int r = entry.minRow; r <= entry.maxRow; r++) {
+            for (int c = entry.minCol; c <= entry.maxCol; c++) {
+                this.cells[c + r * this.columns].add(entry, rect);
+            }
+        }
+    }
+
+    private void erase(Entry entry) {
+        if (entry.frozen) {
+            disable(entry);
+            return;
+        }
+        if (this.frozen && !entry.box) {
+            this.dynamic.remove(entry);
+            return;
+        }
+        if (entry.oversized) {
+            this.oversized.remove(entry);
+            return;
+        }
+        for (int r = entry.minRow; r <= entry.maxRow; r++) {
+            for (int c = entry.minCol; c <= entry.maxCol; c++) {
+                this.cells[c + r * this.columns].remove(entry);
+            }
+        }
+    }
+
+    /**
+     * Disables the packed boxes of a frozen entry.
+     *
+     * @param entry the entry
+     */
+    private void disable(Entry entry) {
+        if (entry.oversized) {
+            for (int i = 0; i < this.wideEntries.length; i++) {
+                if (this.wideEntries[i] == entry) {
+                    this.wideBoxes.disable(i);
+                    this.wideEntries[i] = null;
+                }
+            }
+            return;
+        }
+        for (int r = entry.minRow; r <= entry.maxRow; r++) {
+            for (int c = entry.minCol; c <= entry.maxCol; c++) {
+                int index = c + r * this.columns;
+                for (int i = this.cellStart[index]; i < this.cellStart[index + 1]; i++) {
+                    if (this.frozenEntries[i] == entry) {
+                        this.frozenBoxes.disable(i);
+                        this.frozenEntries[i] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / this.cellSize);
+    }
+
+    private int column(double x) {
+        return clampColumn(cell(x));
+    }
+
+    private int row(double y) {
+        return clampRow(cell(y));
+    }
+
+    private int clampColumn(int col) {
+        return Math.min(Math.max(col, 0), this.columns - 1);
+    }
+
+    private int clampRow(int row) {
+        return Math.min(Math.max(row, 0), this.rows - 1);
+    }
+
+    /**
+     * A collidable together with the cells it is registered in.
+     */
+    private static class Entry {
+        private final Collidable collidable;
+        private final int order;
+        private final boolean box;
+        private boolean oversized;
+        private boolean frozen;
+        private int minCol;
+        private int maxCol;
+        private int minRow;
+        private int maxRow;
+
+        Entry(Collidable collidable, int order) {
+            this.collidable = collidable;
+            this.order = order;
+            this.box = collidable.isStaticBox();
+        }
+    }
+
+    /**
+     * The state of a closest query on one thread: its grid walk and the closest
+     * entry found so far.
+     */
+    private static class Query {
+        private final GridWalk walk = new GridWalk();
+        private Entry best;
+        private double bestT;
+
+        void reset() {
+            this.best = null;
+            this.bestT = Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * Checks whether a hit on an entry is closer than the closest one so far.
+         * On a tie the entry added first wins, like in a linear scan over the
+         * insertion order.
+         *
+         * @param t     the hit fraction
+         * @param entry the entry that was hit
+         * @return true if the hit is closer
+         */
+        boolean closer(double t, Entry entry) {
+            return t < this.bestT || (t == this.bestT && this.best != null && entry.order < this.best.order);
+        }
+
+        void offer(double t, Entry entry) {
+            if (closer(t, entry)) {
+                this.best = entry;
+                this.bestT = t;
+            }
+        }
+    }
+
+    /**
+     * The entries of a single cell: the fixed boxes as a batch of bounds, in the
+     * order they were added, and the rest as a list.
+     */
+    private static class Cell {
+        private final BoxBatch boxes = new BoxBatch(2);
+        private Entry[] boxEntries = new Entry[2];
+        private final List<Entry> others = new ArrayList<Entry>(2);
+
+        void add(Entry entry, Rectangle rect) {
+            if (!entry.box) {
+                this.others.add(entry);
+                return;
+            }
+            int index = this.boxes.add(rect);
+            if (index == this.boxEntries.length) {
+                this.boxEntries = Arrays.copyOf(this.boxEntries, index * 2);
+            }
+            this.boxEntries[index] = entry;
+        }
+
+        void remove(Entry entry) {
+            if (!entry.box) {
+                this.others.remove(entry);
+                return;
+            }
+            int size = this.boxes.size();
+            for (int i = 0; i < size; i++) {
+                if (this.boxEntries[i] == entry) {
+                    this.boxes.remove(i);
+                    System.arraycopy(this.boxEntries, i + 1, this.boxEntries, i, size - i - 1);
+                    this.boxEntries[size - 1] = null;
+                    return;
+                }
+            }
+        }
+
+        void clear() {
+            this.boxes.clear();
+            Arrays.fill(this.boxEntries, null);
+            this.others.clear();
+        }
+    }
+}
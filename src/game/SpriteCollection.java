@@ -1,49 +1,311 @@
 package game;
 
 import biuoop.DrawSurface;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+import game.interfaces.ParallelSprite;
 import game.interfaces.Sprite;
 
 
 /**
  * The SpriteCollection class represents a collection of sprites in the game.
- * It provides methods to add sprites, notify all sprites that time has passed,
- * and draw all sprites on a DrawSurface.
+ * It provides methods to add and remove sprites, notify all sprites that time
+ * has passed, and draw all sprites on a DrawSurface, in the order they were
+ * added. In parallel mode the units of every run of consecutive ParallelSprites
+ * are moved on a ForkJoin pool, in their place in that order.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.01
+ * @version 1.7
  * @since 2024-01-21
  */
 public class SpriteCollection {
-    private List<Sprite> spriteList = new ArrayList<Sprite>();
+    private static final int TASKS_PER_THREAD = 4;
+    private static final int MIN_UNITS_PER_TASK = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Sprite[] spriteArray = new Sprite[INITIAL_CAPACITY];
+    private int size = 0;
+    private int holes = 0;
+    private Map<Sprite, Integer> indexes = new IdentityHashMap<Sprite, Integer>();
+    private List<Sprite> known = new ArrayList<Sprite>();
+    private Map<Sprite, Integer> ids = new IdentityHashMap<Sprite, Integer>();
+    private boolean notifying = false;
+    private List<Sprite> pendingRemovals = new ArrayList<Sprite>();
+    private ForkJoinPool pool = null;
+    private HitEventQueue hitEvents = null;
+    // Kept between ticks, so a parallel tick allocates nothing once they are big enough.
+    private List<ParallelSprite> batch = new ArrayList<ParallelSprite>();
+    private int[] starts = new int[INITIAL_CAPACITY];
+    private List<RangeTask> tasks = new ArrayList<RangeTask>();
+    private List<RangeTask> running = new ArrayList<RangeTask>();
+    private BatchTask batchTask = new BatchTask();
 
     /**
-     * Adds a sprite to the collection.
+     * Adds a sprite to the collection. A sprite is held at most once, so adding it
+     * again does nothing. A sprite added while the sprites are notified is first
+     * notified in the next tick.
      *
      * @param s the sprite to be added
      */
     public void addSprite(Sprite s) {
-        this.spriteList.add(s);
+        if (this.indexes.containsKey(s)) {
+            return;
+        }
+        if (this.size == this.spriteArray.length) {
+            compact();
+        }
+        if (this.size == this.spriteArray.length) {
+            this.spriteArray = Arrays.copyOf(this.spriteArray, this.size * 2);
+        }
+        this.indexes.put(s, this.size);
+        this.spriteArray[this.size++] = s;
+        if (!this.ids.containsKey(s)) {
+            this.ids.put(s, this.known.size());
+            this.known.add(s);
+        }
     }
 
     /**
-     * removes a sprite to the collection.
+     * removes a sprite to the collection. A sprite removed while the sprites are
+     * notified stays until the tick ends.
      *
      * @param s the sprite to be removed
      */
     public void removeSpite(Sprite s) {
-        this.spriteList.remove(s);
+        if (this.notifying) {
+            this.pendingRemovals.add(s);
+        } else {
+            removeNow(s);
+        }
+    }
+
+    /**
+     * Removes a sprite by clearing its slot. The hole is closed by the next
+     * {@link #compact()}.
+     *
+     * @param s the sprite to be removed
+     */
+    private void removeNow(Sprite s) {
+        Integer index = this.indexes.remove(s);
+        if (index == null) {
+            return;
+        }
+        this.spriteArray[index] = null;
+        this.holes++;
+    }
+
+    /**
+     * Closes the holes left by removed sprites, moving the sprites after them
+     * back without changing their order.
+     */
+    private void compact() {
+        if (this.holes == 0) {
+            return;
+        }
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            Sprite s = this.spriteArray[i];
+            if (s == null) {
+                continue;
+            }
+            if (kept != i) {
+                this.spriteArray[kept] = s;
+                this.indexes.put(s, kept);
+            }
+            kept++;
+        }
+        Arrays.fill(this.spriteArray, kept, this.size, null);
+        this.size = kept;
+        this.holes = 0;
+    }
+
+    /**
+     * Gets the number of sprites in the collection.
+     *
+     * @return the number of sprites
+     */
+    public int size() {
+        return this.size - this.holes;
+    }
+
+    /**
+     * Checks if a sprite is in the collection.
+     *
+     * @param s the sprite
+     * @return true if the sprite was added and not removed, false otherwise
+     */
+    public boolean contains(Sprite s) {
+        return this.indexes.containsKey(s);
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeOrder(ByteBuffer)} writes.
+     *
+     * @return the size of the order in bytes
+     */
+    public int orderSize() {
+        return Integer.BYTES * (size() + 1);
+    }
+
+    /**
+     * Writes the sprites in the collection, in their order, as the ids they got
+     * when they were first added.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeOrder(ByteBuffer buffer) {
+        compact();
+        buffer.putInt(this.size);
+        for (int i = 0; i < this.size; i++) {
+            buffer.putInt(this.ids.get(this.spriteArray[i]));
+        }
+    }
+
+    /**
+     * Replaces the sprites in the collection with the ones written by
+     * {@link #writeOrder(ByteBuffer)}, in the same order. Sprites removed since
+     * then are added back. Must not be called while the sprites are notified.
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readOrder(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        Arrays.fill(this.spriteArray, 0, this.size, null);
+        this.indexes.clear();
+        this.size = 0;
+        this.holes = 0;
+        for (int i = 0; i < count; i++) {
+            int id = buffer.getInt();
+            if (id < 0 || id >= this.known.size()) {
+                throw new IllegalArgumentException("Unknown sprite id " + id);
+            }
+            addSprite(this.known.get(id));
+        }
+    }
+
+    /**
+     * Turns the parallel mode on. The hit events of every task are posted into its
+     * own lane of the given queue.
+     *
+     * @param forkJoinPool the pool moving the balls
+     * @param events       the hit event queue of the game
+     */
+    public void setParallel(ForkJoinPool forkJoinPool, HitEventQueue events) {
+        this.pool = forkJoinPool;
+        this.hitEvents = events;
     }
 
     /**
      * Notifies all sprites in the collection that time has passed.
      */
     public void notifyAllTimePassed() {
-        List<Sprite> spritesCopy = new ArrayList<>(spriteList);
-        for (Sprite s : spritesCopy) {
-            s.timePassed();
+        compact();
+        this.notifying = true;
+        try {
+            notifySprites(this.size);
+        } finally {
+            this.notifying = false;
+            for (int i = 0; i < this.pendingRemovals.size(); i++) {
+                removeNow(this.pendingRemovals.get(i));
+            }
+            this.pendingRemovals.clear();
+        }
+    }
+
+    /**
+     * Notifies the first count sprites that time has passed.
+     *
+     * @param count the number of sprites present when the tick started
+     */
+    private void notifySprites(int count) {
+        if (this.pool == null) {
+            for (int i = 0; i < count; i++) {
+                this.spriteArray[i].timePassed();
+            }
+            return;
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (this.spriteArray[i] instanceof ParallelSprite) {
+                ParallelSprite p = (ParallelSprite) this.spriteArray[i];
+                p.beginTimePassed();
+                this.batch.add(p);
+                continue;
+            }
+            moveBatch();
+            this.spriteArray[i].timePassed();
+        }
+        moveBatch();
+    }
+
+    /**
+     * Moves the current run of consecutive parallel sprites, and appends the
+     * events of their lanes to the game thread's lane, so the sprite after the
+     * run sees the same world and the events keep the same order as in the
+     * serial loop. The run is emptied afterwards.
+     */
+    private void moveBatch() {
+        if (this.batch.isEmpty()) {
+            return;
+        }
+        try {
+            moveInParallel();
+            this.hitEvents.mergeLanes();
+        } finally {
+            this.batch.clear();
+        }
+    }
+
+    /**
+     * Splits the units of the current run of parallel sprites into consecutive
+     * ranges, and moves every range in its own task and hit event lane.
+     */
+    private void moveInParallel() {
+        int count = this.batch.size();
+        if (this.starts.length < count + 1) {
+            this.starts = new int[(count + 1) * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            this.starts[i + 1] = this.starts[i] + this.batch.get(i).parallelUnits();
+        }
+        int total = this.starts[count];
+        if (total == 0) {
+            return;
+        }
+        int maxTasks = this.pool.getParallelism() * TASKS_PER_THREAD;
+        int taskCount = Math.max(1, Math.min(maxTasks, total / MIN_UNITS_PER_TASK));
+        this.hitEvents.ensureLanes(taskCount);
+
+        while (this.tasks.size() < taskCount) {
+            this.tasks.add(new RangeTask());
+        }
+        this.running.clear();
+        for (int t = 0; t < taskCount; t++) {
+            RangeTask task = this.tasks.get(t);
+            task.reinitialize();
+            task.lane = t;
+            task.from = (int) ((long) total * t / taskCount);
+            task.to = (int) ((long) total * (t + 1) / taskCount);
+            this.running.add(task);
+        }
+        this.batchTask.reinitialize();
+        this.pool.invoke(this.batchTask);
+    }
+
+    private void moveRange(int from, int to) {
+        for (int i = 0; i < this.batch.size() && this.starts[i] < to; i++) {
+            int begin = Math.max(from, this.starts[i]);
+            int end = Math.min(to, this.starts[i + 1]);
+            if (begin < end) {
+                this.batch.get(i).timePassed(begin - this.starts[i], end - this.starts[i]);
+            }
         }
     }
 
@@ -53,8 +315,43 @@ public class SpriteCollection {
      * @param d the DrawSurface to draw on
      */
     public void drawAllOn(DrawSurface d) {
-        for (Sprite s : spriteList) {
-            s.drawOn(d);
+        compact();
+        for (int i = 0; i < this.size; i++) {
+            this.spriteArray[i].drawOn(d);
+        }
+    }
+
+    /**
+     * Runs the range tasks of a parallel batch and waits for all of them.
+     */
+    private class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(running);
+        }
+    }
+
+    /**
+     * Moves a range of the units of a parallel batch, posting its hit events into
+     * its own lane. Reused from tick to tick.
+     */
+    private class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private int lane;
+        private int from;
+        private int to;
+
+        @Override
+        protected void compute() {
+            hitEvents.enterLane(this.lane);
+            try {
+                moveRange(this.from, this.to);
+            } finally {
+                hitEvents.exitLane();
+            }
         }
     }
 }
@@ -0,0 +1,270 @@
+package game;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import biuoop.DrawSurface;
+
+import game.interfaces.Sprite;
+import game.objects.Block;
+import gui.ImageDrawSurface;
+import gui.NullDrawSurface;
+
+/**
+ * The StaticLayer class is a retained background layer for the blocks that never
+ * move (the frame, the game area and the bricks). The blocks are rasterized once
+ * into an off-screen image, and every frame costs a single drawImage call. When a
+ * block is removed only its own region is redrawn, from the blocks below it that
+ * overlap it, which are found through a grid of cells over the layer.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-22
+ */
+public class StaticLayer implements Sprite {
+    private static final int CELL_SIZE = 50;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int width;
+    private int height;
+    private int columns;
+    private int rows;
+    // The blocks in drawing order; a removed block leaves a null until the next full redraw.
+    private Block[] blocks = new Block[INITIAL_CAPACITY];
+    private int[] boundsX = new int[INITIAL_CAPACITY];
+    private int[] boundsY = new int[INITIAL_CAPACITY];
+    private int[] boundsWidth = new int[INITIAL_CAPACITY];
+    private int[] boundsHeight = new int[INITIAL_CAPACITY];
+    private int[] stamps = new int[INITIAL_CAPACITY];
+    private int size = 0;
+    private int holes = 0;
+    private Map<Block, Integer> indexes = new IdentityHashMap<Block, Integer>();
+    private int[][] cells;
+    private int[] cellSizes;
+    private int[] damaged = new int[INITIAL_CAPACITY];
+    private int damagedCount = 0;
+    private int[] candidates = new int[INITIAL_CAPACITY];
+    private int stamp = 0;
+    private Rectangle clip = new Rectangle();
+    private ImageDrawSurface surface = null;
+    private boolean stale = true;
+
+    /**
+     * Constructs an empty layer of the given size.
+     *
+     * @param width  the width of the layer
+     * @param height the height of the layer
+     */
+    public StaticLayer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.columns = width / CELL_SIZE + 1;
+        this.rows = height / CELL_SIZE + 1;
+        this.cells = new int[this.columns * this.rows][];
+        this.cellSizes = new int[this.columns * this.rows];
+        for (int i = 0; i < this.cells.length; i++) {
+            this.cells[i] = new int[INITIAL_CAPACITY];
+        }
+    }
+
+    /**
+     * Adds a block on top of the layer.
+     *
+     * @param b the block to add
+     */
+    public void addBlock(Block b) {
+        if (this.holes > this.size / 2) {
+            compact();
+        }
+        if (this.size == this.blocks.length) {
+            int capacity = this.size * 2;
+            this.blocks = Arrays.copyOf(this.blocks, capacity);
+            this.boundsX = Arrays.copyOf(this.boundsX, capacity);
+            this.boundsY = Arrays.copyOf(this.boundsY, capacity);
+            this.boundsWidth = Arrays.copyOf(this.boundsWidth, capacity);
+            this.boundsHeight = Arrays.copyOf(this.boundsHeight, capacity);
+            this.stamps = Arrays.copyOf(this.stamps, capacity);
+            this.candidates = Arrays.copyOf(this.candidates, capacity);
+        }
+        // The pixels the block covers, including its outline; a static block never moves.
+        gui.shapes.Rectangle rect = b.getCollisionRectangle();
+        this.boundsX[this.size] = (int) rect.getStartX();
+        this.boundsY[this.size] = (int) rect.getStartY();
+        this.boundsWidth[this.size] = (int) rect.getWidth() + 1;
+        this.boundsHeight[this.size] = (int) rect.getHeight() + 1;
+        this.blocks[this.size] = b;
+        this.indexes.put(b, this.size);
+        this.size++;
+        // The whole layer is redrawn, so the regions waiting for a redraw are moot.
+        this.stale = true;
+        this.damagedCount = 0;
+    }
+
+    /**
+     * Removes a block from the layer, and marks its region for a redraw.
+     *
+     * @param b the block to remove
+     */
+    public void removeBlock(Block b) {
+        Integer index = this.indexes.remove(b);
+        if (index == null) {
+            return;
+        }
+        this.blocks[index] = null;
+        this.holes++;
+        if (!this.stale) {
+            if (this.damagedCount == this.damaged.length) {
+                this.damaged = Arrays.copyOf(this.damaged, this.damagedCount * 2);
+            }
+            this.damaged[this.damagedCount++] = index;
+        }
+    }
+
+    /**
+     * Draws the cached layer, updating it first if blocks were added or removed.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        if (d instanceof NullDrawSurface) {
+            // Nothing will be shown, so there is no point in keeping the image.
+            return;
+        }
+        if (this.surface == null) {
+            this.surface = new ImageDrawSurface(this.width, this.height);
+        }
+        if (this.stale) {
+            compact();
+            fillCells();
+            this.surface.setClip(null);
+            for (int i = 0; i < this.size; i++) {
+                this.blocks[i].drawOn(this.surface);
+            }
+            this.stale = false;
+        }
+        for (int i = 0; i < this.damagedCount; i++) {
+            redraw(this.damaged[i]);
+        }
+        this.damagedCount = 0;
+        d.drawImage(0, 0, this.surface.getImage());
+    }
+
+    /**
+     * Performs a time-based operation for the layer (no time-based operation for this class).
+     */
+    @Override
+    public void timePassed() {
+    }
+
+    /**
+     * Redraws the region of a removed block from the blocks that overlap it, in
+     * drawing order.
+     *
+     * @param removed the index of the removed block
+     */
+    private void redraw(int removed) {
+        int x = this.boundsX[removed];
+        int y = this.boundsY[removed];
+        int w = this.boundsWidth[removed];
+        int h = this.boundsHeight[removed];
+        int count = 0;
+        this.stamp++;
+        for (int row = row(y); row <= row(y + h - 1); row++) {
+            for (int column = column(x); column <= column(x + w - 1); column++) {
+                int cell = row * this.columns + column;
+                for (int k = 0; k < this.cellSizes[cell]; k++) {
+                    int i = this.cells[cell][k];
+                    if (this.stamps[i] != this.stamp && this.blocks[i] != null && overlaps(i, x, y, w, h)) {
+                        this.stamps[i] = this.stamp;
+                        this.candidates[count++] = i;
+                    }
+                }
+            }
+        }
+        Arrays.sort(this.candidates, 0, count);
+        this.clip.setBounds(x, y, w, h);
+        this.surface.setClip(this.clip);
+        for (int k = 0; k < count; k++) {
+            this.blocks[this.candidates[k]].drawOn(this.surface);
+        }
+    }
+
+    /**
+     * Checks whether the pixels of a block overlap a region.
+     *
+     * @param i the index of the block
+     * @param x the x-coordinate of the region
+     * @param y the y-coordinate of the region
+     * @param w the width of the region
+     * @param h the height of the region
+     * @return true if they share a pixel
+     */
+    private boolean overlaps(int i, int x, int y, int w, int h) {
+        return this.boundsX[i] < x + w && x < this.boundsX[i] + this.boundsWidth[i]
+                && this.boundsY[i] < y + h && y < this.boundsY[i] + this.boundsHeight[i];
+    }
+
+    /**
+     * Drops the holes left by removed blocks, keeping the drawing order.
+     */
+    private void compact() {
+        int kept = 0;
+        for (int i = 0; i < this.size; i++) {
+            Block b = this.blocks[i];
+            if (b != null) {
+                this.blocks[kept] = b;
+                this.boundsX[kept] = this.boundsX[i];
+                this.boundsY[kept] = this.boundsY[i];
+                this.boundsWidth[kept] = this.boundsWidth[i];
+                this.boundsHeight[kept] = this.boundsHeight[i];
+                this.indexes.put(b, kept);
+                kept++;
+            }
+        }
+        Arrays.fill(this.blocks, kept, this.size, null);
+        this.size = kept;
+        this.holes = 0;
+    }
+
+    /**
+     * Puts every block into the cells its pixels cover, in drawing order.
+     */
+    private void fillCells() {
+        Arrays.fill(this.cellSizes, 0);
+        for (int i = 0; i < this.size; i++) {
+            int x = this.boundsX[i];
+            int y = this.boundsY[i];
+            for (int row = row(y); row <= row(y + this.boundsHeight[i] - 1); row++) {
+                for (int column = column(x); column <= column(x + this.boundsWidth[i] - 1); column++) {
+                    int cell = row * this.columns + column;
+                    if (this.cellSizes[cell] == this.cells[cell].length) {
+                        this.cells[cell] = Arrays.copyOf(this.cells[cell], this.cellSizes[cell] * 2);
+                    }
+                    this.cells[cell][this.cellSizes[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the column of the cell holding an x-coordinate, clamped to the layer.
+     *
+     * @param x the x-coordinate
+     * @return the column
+     */
+    private int column(int x) {
+        return Math.max(0, Math.min(this.columns - 1, x / CELL_SIZE));
+    }
+
+    /**
+     * Gets the row of the cell holding a y-coordinate, clamped to the layer.
+     *
+     * @param y the y-coordinate
+     * @return the row
+     */
+    private int row(int y) {
+        return Math.max(0, Math.min(this.rows - 1, y / CELL_SIZE));
+    }
+}
@@ -0,0 +1,229 @@
+package game.env;
+
+import game.Game;
+import game.input.ActionKeyboard;
+import game.interfaces.Hitter;
+import gui.shapes.Rectangle;
+
+/**
+ * The BreakOutEnv class is a reinforcement learning environment over a headless
+ * game, in the reset/step style of Gym. An action moves the paddle (see
+ * ActionKeyboard) for a fixed number of ticks; the reward of a step is the
+ * score it gained, and an episode is done when the game is over or out of
+ * ticks. The observation is a fixed array of floats, scaled to about [-1, 1]:
+ * the paddle center, the share of bricks and balls left, and the position and
+ * velocity of the balls closest to the bottom that are still moving (zeros
+ * when there are fewer).
+ * Every episode is a new game, seeded with the next seed of the environment.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-04-10
+ */
+public class BreakOutEnv {
+    /**
+     * The number of balls described by an observation.
+     */
+    public static final int OBSERVED_BALLS = 4;
+    /**
+     * The number of floats in an observation.
+     */
+    public static final int OBSERVATION_SIZE = 3 + OBSERVED_BALLS * 4;
+
+    private static final float VELOCITY_SCALE = 10;
+
+    private final int extraBalls;
+    private final int frameSkip;
+    private final long maxTicks;
+    private final long seedStride;
+    private long seed;
+
+    private Game game = null;
+    private ActionKeyboard keyboard = null;
+    private int startBlocks;
+    private int startBalls;
+    private int lastScore;
+    private boolean done = true;
+    private long episodes = 0;
+
+    private final int[] lowest = new int[OBSERVED_BALLS];
+
+    /**
+     * Constructs an environment whose episodes are seeded with seed, seed + 1,
+     * and so on.
+     *
+     * @param extraBalls the number of balls added to the three of the game
+     * @param frameSkip  the number of ticks an action is held in a step
+     * @param maxTicks   the number of ticks after which an episode ends
+     * @param seed       the seed of the first episode
+     */
+    public BreakOutEnv(int extraBalls, int frameSkip, long maxTicks, long seed) {
+        this(extraBalls, frameSkip, maxTicks, seed, 1);
+    }
+
+    /**
+     * Constructs an environment whose episodes are seeded with seed,
+     * seed + seedStride, and so on, so environments with different first seeds
+     * and the same stride never play the same episode.
+     *
+     * @param extraBalls the number of balls added to the three of the game
+     * @param frameSkip  the number of ticks an action is held in a step
+     * @param maxTicks   the number of ticks after which an episode ends
+     * @param seed       the seed of the first episode
+     * @param seedStride the difference between the seeds of two episodes
+     */
+    public BreakOutEnv(int extraBalls, int frameSkip, long maxTicks, long seed, long seedStride) {
+        this.extraBalls = extraBalls;
+        this.frameSkip = Math.max(1, frameSkip);
+        this.maxTicks = maxTicks;
+        this.seed = seed;
+        this.seedStride = seedStride;
+    }
+
+    /**
+     * Starts a new episode.
+     *
+     * @param observation the array to write the first observation into
+     * @param offset      the index of the observation in the array
+     */
+    public void reset(float[] observation, int offset) {
+        this.keyboard = new ActionKeyboard();
+        this.game = new Game(this.keyboard);
+        this.game.setSeed(this.seed);
+        this.game.setMaxTicks(this.maxTicks);
+        this.game.initialize();
+        if (this.extraBalls > 0) {
+            this.game.addBalls(this.extraBalls);
+        }
+        this.seed += this.seedStride;
+        this.episodes++;
+        this.startBlocks = Math.max(1, this.game.getRemainingBlocks());
+        this.startBalls = Math.max(1, this.game.getRemainingBalls());
+        this.lastScore = this.game.getScore();
+        this.done = false;
+        observe(observation, offset);
+    }
+
+    /**
+     * Starts a new episode.
+     *
+     * @return the first observation
+     */
+    public float[] reset() {
+        float[] observation = new float[OBSERVATION_SIZE];
+        reset(observation, 0);
+        return observation;
+    }
+
+    /**
+     * Holds an action for the ticks of a step.
+     *
+     * @param action      the action, one of the ActionKeyboard actions
+     * @param observation the array to write the next observation into
+     * @param offset      the index of the observation in the array
+     * @return the reward: the score gained during the step
+     * @throws IllegalStateException if the episode is done and was not reset
+     */
+    public float step(int action, float[] observation, int offset) {
+        if (this.done) {
+            throw new IllegalStateException("The episode is done; reset the environment");
+        }
+        this.keyboard.setAction(action);
+        for (int i = 0; i < this.frameSkip && !this.done; i++) {
+            this.done = !this.game.advance();
+        }
+        int score = this.game.getScore();
+        float reward = score - this.lastScore;
+        this.lastScore = score;
+        observe(observation, offset);
+        return reward;
+    }
+
+    /**
+     * Checks if the episode is over.
+     *
+     * @return true if the game is over or out of ticks, false otherwise
+     */
+    public boolean isDone() {
+        return this.done;
+    }
+
+    /**
+     * Gets the game of the current episode.
+     *
+     * @return the game, or null before the first reset
+     */
+    public Game getGame() {
+        return this.game;
+    }
+
+    /**
+     * Gets the number of episodes started.
+     *
+     * @return the number of resets
+     */
+    public long getEpisodes() {
+        return this.episodes;
+    }
+
+    /**
+     * Writes the observation of the current state.
+     *
+     * @param observation the array to write into
+     * @param offset      the index of the observation in the array
+     */
+    public void observe(float[] observation, int offset) {
+        float width = this.game.getWidth();
+        float height = this.game.getHeight();
+        Rectangle paddle = this.game.getPaddle().getCollisionRectangle();
+        observation[offset] = (float) ((paddle.getStartX() + paddle.getWidth() / 2) / width);
+        observation[offset + 1] = (float) this.game.getRemainingBlocks() / this.startBlocks;
+        observation[offset + 2] = (float) this.game.getRemainingBalls() / this.startBalls;
+
+        int found = findLowestBalls();
+        for (int k = 0; k < OBSERVED_BALLS; k++) {
+            int at = offset + 3 + k * 4;
+            if (k < found) {
+                Hitter ball = this.game.getBall(this.lowest[k]);
+                observation[at] = (float) ball.getX() / width;
+                observation[at + 1] = (float) ball.getY() / height;
+                observation[at + 2] = (float) ball.getDx() / VELOCITY_SCALE;
+                observation[at + 3] = (float) ball.getDy() / VELOCITY_SCALE;
+            } else {
+                observation[at] = 0;
+                observation[at + 1] = 0;
+                observation[at + 2] = 0;
+                observation[at + 3] = 0;
+            }
+        }
+    }
+
+    /**
+     * Finds the moving balls with the largest y, lowest first.
+     *
+     * @return the number of balls found, at most {@link #OBSERVED_BALLS}
+     */
+    private int findLowestBalls() {
+        int found = 0;
+        int count = this.game.getBallCount();
+        for (int i = 0; i < count; i++) {
+            Hitter ball = this.game.getBall(i);
+            if (ball.getDx() == 0 && ball.getDy() == 0) {
+                // A ball that fell stands still.
+                continue;
+            }
+            double y = ball.getY();
+            if (found == OBSERVED_BALLS && y <= this.game.getBall(this.lowest[found - 1]).getY()) {
+                continue;
+            }
+            int k = Math.min(found, OBSERVED_BALLS - 1);
+            while (k > 0 && this.game.getBall(this.lowest[k - 1]).getY() < y) {
+                this.lowest[k] = this.lowest[k - 1];
+                k--;
+            }
+            this.lowest[k] = i;
+            found = Math.min(found + 1, OBSERVED_BALLS);
+        }
+        return found;
+    }
+}
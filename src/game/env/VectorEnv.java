@@ -0,0 +1,171 @@
+package game.env;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The VectorEnv class steps many BreakOutEnv environments in one call, split
+ * into consecutive ranges that run on a ForkJoin pool. The observations of all
+ * the environments go into one preallocated array, the observation of
+ * environment i starting at i * {@link BreakOutEnv#OBSERVATION_SIZE}, next to
+ * arrays of the rewards and the done flags. An environment whose episode ends
+ * is reset right away: its done flag is set and its observation is the first
+ * one of the next episode.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-10
+ */
+public class VectorEnv implements AutoCloseable {
+    private final BreakOutEnv[] envs;
+    private final float[] observations;
+    private final float[] rewards;
+    private final boolean[] dones;
+    private final ForkJoinPool pool;
+    private final List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+    private int[] actions = null;
+
+    /**
+     * Constructs the environments. Environment i plays the seeds seed + i,
+     * seed + i + count, and so on.
+     *
+     * @param count      the number of environments
+     * @param extraBalls the number of balls added to the three of every game
+     * @param frameSkip  the number of ticks an action is held in a step
+     * @param maxTicks   the number of ticks after which an episode ends
+     * @param seed       the seed of the first episode of the first environment
+     * @param threads    the number of threads, 1 or less to step on the calling
+     *                   thread
+     */
+    public VectorEnv(int count, int extraBalls, int frameSkip, long maxTicks, long seed, int threads) {
+        this.envs = new BreakOutEnv[count];
+        for (int i = 0; i < count; i++) {
+            this.envs[i] = new BreakOutEnv(extraBalls, frameSkip, maxTicks, seed + i, count);
+        }
+        this.observations = new float[count * BreakOutEnv.OBSERVATION_SIZE];
+        this.rewards = new float[count];
+        this.dones = new boolean[count];
+        this.pool = threads > 1 ? new ForkJoinPool(threads) : null;
+        int taskCount = threads > 1 ? Math.min(count, threads) : 1;
+        for (int t = 0; t < taskCount; t++) {
+            int from = (int) ((long) count * t / taskCount);
+            int to = (int) ((long) count * (t + 1) / taskCount);
+            this.tasks.add(() -> {
+                stepRange(from, to);
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Starts a new episode in every environment and writes the first
+     * observations.
+     */
+    public void reset() {
+        for (int i = 0; i < this.envs.length; i++) {
+            this.envs[i].reset(this.observations, i * BreakOutEnv.OBSERVATION_SIZE);
+            this.rewards[i] = 0;
+            this.dones[i] = false;
+        }
+    }
+
+    /**
+     * Steps every environment with its action, and writes the observations, the
+     * rewards and the done flags.
+     *
+     * @param stepActions the action of every environment
+     */
+    public void step(int[] stepActions) {
+        if (stepActions.length != this.envs.length) {
+            throw new IllegalArgumentException("Expected " + this.envs.length + " actions");
+        }
+        this.actions = stepActions;
+        if (this.pool == null) {
+            stepRange(0, this.envs.length);
+            return;
+        }
+        for (Future<Void> f : this.pool.invokeAll(this.tasks)) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+    }
+
+    private void stepRange(int from, int to) {
+        for (int i = from; i < to; i++) {
+            BreakOutEnv env = this.envs[i];
+            int offset = i * BreakOutEnv.OBSERVATION_SIZE;
+            this.rewards[i] = env.step(this.actions[i], this.observations, offset);
+            this.dones[i] = env.isDone();
+            if (this.dones[i]) {
+                env.reset(this.observations, offset);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of environments.
+     *
+     * @return the number of environments
+     */
+    public int size() {
+        return this.envs.length;
+    }
+
+    /**
+     * Gets an environment.
+     *
+     * @param i the index of the environment
+     * @return the environment
+     */
+    public BreakOutEnv getEnv(int i) {
+        return this.envs[i];
+    }
+
+    /**
+     * Gets the observations of the last step, environment after environment.
+     * The array is reused by every step.
+     *
+     * @return the observations
+     */
+    public float[] getObservations() {
+        return this.observations;
+    }
+
+    /**
+     * Gets the rewards of the last step. The array is reused by every step.
+     *
+     * @return the rewards
+     */
+    public float[] getRewards() {
+        return this.rewards;
+    }
+
+    /**
+     * Gets the done flags of the last step. The array is reused by every step.
+     *
+     * @return the done flags
+     */
+    public boolean[] getDones() {
+        return this.dones;
+    }
+
+    /**
+     * Stops the threads of the pool.
+     */
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdown();
+        }
+    }
+}
@@ -2,34 +2,128 @@ package game.informative;
 
 import game.interfaces.Collidable;
 import gui.Point;
+import gui.RayHit;
 
 /**
  * The CollisionInfo class represents information about a collision between a
- * point and a collidable object.
- * It includes the collision point and the collidable object involved in the
- * collision.
+ * point and a collidable object: the collision point, the collidable, the time
+ * of impact, the normal of the face that was hit, and for a collidable made of
+ * many parts, the part that was hit.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.1
+ * @version 1.5
  * @since 2024-21-01
  */
 public class CollisionInfo {
     private Point point;
     private Collidable object;
     private double distance;
+    private double time;
+    private double normalX;
+    private double normalY;
+    private int part;
+
+    /**
+     * Constructs an empty CollisionInfo, to be filled by
+     * {@link #setFromRayHit(Collidable, double, double, double, double, RayHit)}.
+     */
+    public CollisionInfo() {
+        this(new Point(0, 0), null, Double.POSITIVE_INFINITY);
+    }
 
     /**
      * Constructs a CollisionInfo with the specified collision point, collidable
-     * object, and distance.
+     * object, and distance, with no time of impact or normal.
      *
      * @param point    the point at which the collision occurs
      * @param object   the collidable object involved in the collision
      * @param distance the distance from some reference point
      */
     public CollisionInfo(Point point, Collidable object, double distance) {
+        this(point, object, distance, Double.POSITIVE_INFINITY, 0, 0);
+    }
+
+    /**
+     * Constructs a CollisionInfo with all of its fields.
+     *
+     * @param point    the point at which the collision occurs
+     * @param object   the collidable object involved in the collision
+     * @param distance the distance from the start of the step
+     * @param time     the fraction of the step travelled until the collision
+     * @param normalX  the x-component of the normal of the face hit
+     * @param normalY  the y-component of the normal of the face hit
+     */
+    public CollisionInfo(Point point, Collidable object, double distance, double time, double normalX,
+            double normalY) {
+        this(point, object, distance, time, normalX, normalY, -1);
+    }
+
+    /**
+     * Constructs a CollisionInfo with all of its fields, for a hit on one part of
+     * a collidable.
+     *
+     * @param point    the point at which the collision occurs
+     * @param object   the collidable object involved in the collision
+     * @param distance the distance from the start of the step
+     * @param time     the fraction of the step travelled until the collision
+     * @param normalX  the x-component of the normal of the face hit
+     * @param normalY  the y-component of the normal of the face hit
+     * @param part     the index of the part of the collidable that was hit, or -1
+     */
+    public CollisionInfo(Point point, Collidable object, double distance, double time, double normalX,
+            double normalY, int part) {
         this.point = point;
         this.object = object;
         this.distance = distance;
+        this.time = time;
+        this.normalX = normalX;
+        this.normalY = normalY;
+        this.part = part;
+    }
+
+    /**
+     * Builds the information of a hit found by a ray cast of the step from
+     * (x0, y0) to (x0 + dx, y0 + dy).
+     *
+     * @param object the collidable that was hit
+     * @param x0     the x-coordinate of the step start
+     * @param y0     the y-coordinate of the step start
+     * @param dx     the x-component of the step
+     * @param dy     the y-component of the step
+     * @param hit    the result of the ray cast, with the fraction, face and part
+     * @return the collision information
+     */
+    public static CollisionInfo fromRayHit(Collidable object, double x0, double y0, double dx, double dy,
+            RayHit hit) {
+        return new CollisionInfo().setFromRayHit(object, x0, y0, dx, dy, hit);
+    }
+
+    /**
+     * Fills this collision information with a hit found by a ray cast of the
+     * step from (x0, y0) to (x0 + dx, y0 + dy), so a mover can keep one instance
+     * and reuse it for every hit. The collision point is updated in place.
+     *
+     * @param object the collidable that was hit
+     * @param x0     the x-coordinate of the step start
+     * @param y0     the y-coordinate of the step start
+     * @param dx     the x-component of the step
+     * @param dy     the y-component of the step
+     * @param hit    the result of the ray cast, with the fraction, face and part
+     * @return this collision information
+     */
+    public CollisionInfo setFromRayHit(Collidable object, double x0, double y0, double dx, double dy,
+            RayHit hit) {
+        double t = hit.getT();
+        int face = hit.getFace();
+        this.point.setX(x0 + dx * t);
+        this.point.setY(y0 + dy * t);
+        this.object = object;
+        this.distance = Math.sqrt(dx * dx + dy * dy) * t;
+        this.time = t;
+        this.normalX = (face & (RayHit.LEFT | RayHit.RIGHT)) != 0 ? -Math.signum(dx) : 0;
+        this.normalY = (face & (RayHit.TOP | RayHit.BOTTOM)) != 0 ? -Math.signum(dy) : 0;
+        this.part = hit.getPart();
+        return this;
     }
 
     /**
@@ -58,4 +152,42 @@ public class CollisionInfo {
     public double distance() {
         return this.distance;
     }
+
+    /**
+     * Returns the time of impact: the fraction of the step travelled until the
+     * collision.
+     *
+     * @return the fraction in [0, 1], or positive infinity if unknown
+     */
+    public double time() {
+        return this.time;
+    }
+
+    /**
+     * Returns the x-component of the normal of the face hit.
+     *
+     * @return -1 or 1 if a side facing along x was hit, 0 otherwise
+     */
+    public double normalX() {
+        return this.normalX;
+    }
+
+    /**
+     * Returns the y-component of the normal of the face hit.
+     *
+     * @return -1 or 1 if a side facing along y was hit, 0 otherwise
+     */
+    public double normalY() {
+        return this.normalY;
+    }
+
+    /**
+     * Returns the part of the collidable that was hit, like a brick of a field or
+     * a tile of a map.
+     *
+     * @return the index of the part, or -1 if the collidable has no parts
+     */
+    public int part() {
+        return this.part;
+    }
 }
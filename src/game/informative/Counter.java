@@ -5,7 +5,7 @@ package game.informative;
  * decremented, and queried for its current value.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.0
+ * @version 1.1
  * @since 2024-23-02
  */
 public class Counter {
@@ -29,6 +29,16 @@ public class Counter {
         this.count -= number;
     }
 
+    /**
+     * Sets the counter to a specified value, like when a game is restored from a
+     * snapshot.
+     *
+     * @param value the new value of the counter
+     */
+    public void setValue(int value) {
+        this.count = value;
+    }
+
     /**
      * Gets the current value of the counter.
      *
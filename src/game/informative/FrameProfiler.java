@@ -0,0 +1,138 @@
+package game.informative;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The FrameProfiler class keeps a latency histogram for every phase of a frame:
+ * the whole frame, drawing the sprites, showing the surface, moving the sprites
+ * and the single collision queries. Collision queries may run on several
+ * threads, so every thread records into its own histogram and they are merged
+ * when read.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-24
+ */
+public class FrameProfiler {
+    /** A whole frame, without the sleep at its end. */
+    public static final int FRAME = 0;
+    /** Drawing every sprite on the surface. */
+    public static final int DRAW = 1;
+    /** Showing the surface on the screen. */
+    public static final int SHOW = 2;
+    /** Notifying every sprite that time passed, including the hit events. */
+    public static final int UPDATE = 3;
+    /** A single closest collision query. */
+    public static final int COLLISION = 4;
+
+    private static final String[] NAMES = {"frame", "draw", "show", "update", "collision"};
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    private LatencyHistogram[] phases = new LatencyHistogram[NAMES.length];
+    private List<LatencyHistogram> collisions = new ArrayList<LatencyHistogram>();
+    private ThreadLocal<LatencyHistogram> threadCollisions = ThreadLocal.withInitial(this::newCollisionHistogram);
+
+    /**
+     * Constructs a profiler with empty histograms.
+     */
+    public FrameProfiler() {
+        for (int i = 0; i < this.phases.length; i++) {
+            this.phases[i] = new LatencyHistogram();
+        }
+    }
+
+    private synchronized LatencyHistogram newCollisionHistogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        this.collisions.add(histogram);
+        return histogram;
+    }
+
+    /**
+     * Records the duration of a phase. Must be called from the game thread.
+     *
+     * @param phase the phase
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(int phase, long nanos) {
+        this.phases[phase].record(nanos);
+    }
+
+    /**
+     * Records the duration of a collision query. May be called from any thread.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void recordCollision(long nanos) {
+        this.threadCollisions.get().record(nanos);
+    }
+
+    /**
+     * Gets the number of phases.
+     *
+     * @return the number of phases
+     */
+    public int getPhaseCount() {
+        return NAMES.length;
+    }
+
+    /**
+     * Gets the name of a phase.
+     *
+     * @param phase the phase
+     * @return the name of the phase
+     */
+    public String getName(int phase) {
+        return NAMES[phase];
+    }
+
+    /**
+     * Gets the histogram of a phase. The collision histogram is a merged copy of
+     * the histograms of every thread.
+     *
+     * @param phase the phase
+     * @return the histogram
+     */
+    public synchronized LatencyHistogram getHistogram(int phase) {
+        if (phase != COLLISION) {
+            return this.phases[phase];
+        }
+        LatencyHistogram merged = new LatencyHistogram();
+        for (LatencyHistogram histogram : this.collisions) {
+            merged.add(histogram);
+        }
+        return merged;
+    }
+
+    /**
+     * Gets a one-line summary of a phase, in microseconds.
+     *
+     * @param phase the phase
+     * @return the summary
+     */
+    public String summary(int phase) {
+        LatencyHistogram h = getHistogram(phase);
+        return String.format("%-9s p50 %8.1fus  p99 %8.1fus  max %8.1fus", NAMES[phase],
+                h.getPercentile(50) / NANOS_PER_MICRO, h.getPercentile(99) / NANOS_PER_MICRO,
+                h.getMax() / NANOS_PER_MICRO);
+    }
+
+    /**
+     * Writes the count, p50, p99 and maximum of every phase, in nanoseconds, as CSV.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void writeCsv(String path) throws IOException {
+        try (PrintWriter out = new PrintWriter(path)) {
+            out.println("phase,count,p50_ns,p99_ns,max_ns");
+            for (int i = 0; i < NAMES.length; i++) {
+                LatencyHistogram h = getHistogram(i);
+                out.println(NAMES[i] + "," + h.getCount() + "," + h.getPercentile(50) + ","
+                        + h.getPercentile(99) + "," + h.getMax());
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package game.input;
+
+/**
+ * The ActionKeyboard class is the input source of a paddle driven by a program,
+ * like a learning agent. The program sets an action (stay, left or right), and
+ * it takes effect on the next tick and holds until another action is set.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-10
+ */
+public class ActionKeyboard implements InputSource {
+    /**
+     * The action that keeps the paddle where it is.
+     */
+    public static final int STAY = 0;
+    /**
+     * The action that moves the paddle left.
+     */
+    public static final int LEFT = 1;
+    /**
+     * The action that moves the paddle right.
+     */
+    public static final int RIGHT = 2;
+    /**
+     * The number of actions.
+     */
+    public static final int ACTIONS = 3;
+
+    private int next = STAY;
+    private int current = STAY;
+
+    /**
+     * Sets the action of the next ticks.
+     *
+     * @param action {@link #STAY}, {@link #LEFT} or {@link #RIGHT}
+     */
+    public void setAction(int action) {
+        if (action < 0 || action >= ACTIONS) {
+            throw new IllegalArgumentException("Unknown action " + action);
+        }
+        this.next = action;
+    }
+
+    /**
+     * Gets the action of the current tick.
+     *
+     * @return the action
+     */
+    public int getAction() {
+        return this.current;
+    }
+
+    @Override
+    public void tick() {
+        this.current = this.next;
+    }
+
+    /**
+     * Checks if a key is pressed by the action of the current tick.
+     *
+     * @param key the key to check
+     * @return true if the action presses the key, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return this.current == LEFT;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return this.current == RIGHT;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,276 @@
+package game.input;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import game.Game;
+import game.GameEnvironment;
+import game.interfaces.Collidable;
+import game.interfaces.Hitter;
+import game.objects.ArenaBounds;
+import game.objects.Block;
+import gui.RayHit;
+import gui.shapes.Rectangle;
+
+/**
+ * The Autopilot class is an input source that plays the paddle by itself, for
+ * attract modes and soak tests. For every moving ball it predicts where the
+ * ball reaches the height of the paddle, by casting rays through the game
+ * environment and reflecting them off the faces they cross, for a few bounces.
+ * Every tick it moves the paddle toward the landing point of the ball that
+ * lands first.
+ * A predicted path is kept while the ball flies along it: it is only cast
+ * again once the velocity of the ball changed (it bounced), or a brick the
+ * path bounces off left the game. A bounce off a tile map or a brick field is
+ * cast again whenever a brick is removed anywhere, since the field stays a
+ * single collidable. A tick so costs a cache check per ball, and the rays are
+ * only cast about once per bounce.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.2
+ * @since 2024-04-12
+ */
+public class Autopilot implements InputSource {
+    private static final int MAX_BOUNCES = 8;
+    private static final double LEG_TICKS = 400;
+    private static final double NUDGE = 0.0001;
+    private static final double DEAD_ZONE = 3;
+    private static final double AIM_OFFSET = 0.2;
+
+    private final Game game;
+    private final RayHit hit = new RayHit();
+    private final Map<Hitter, Path> paths = new IdentityHashMap<Hitter, Path>();
+    private int epoch = 0;
+    private int action = ActionKeyboard.STAY;
+    private long predictions = 0;
+    private long cacheHits = 0;
+
+    /**
+     * Constructs an autopilot for the paddle of a game. It starts playing once
+     * the game is initialized.
+     *
+     * @param game the game
+     */
+    public Autopilot(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Updates the predicted paths and picks the move of the paddle for the
+     * coming tick.
+     */
+    @Override
+    public void tick() {
+        this.action = ActionKeyboard.STAY;
+        if (this.game.getPaddle() == null) {
+            return;
+        }
+        this.epoch++;
+        Rectangle paddle = this.game.getPaddle().getCollisionRectangle();
+        double paddleTop = paddle.getStartY();
+        int blocks = this.game.getRemainingBlocks();
+
+        Path first = null;
+        boolean firstReachable = false;
+        int count = this.game.getBallCount();
+        for (int i = 0; i < count; i++) {
+            Hitter ball = this.game.getBall(i);
+            double dx = ball.getDx();
+            double dy = ball.getDy();
+            if ((dx == 0 && dy == 0) || ball.getY() >= paddleTop) {
+                // Fell, or already past the paddle.
+                continue;
+            }
+            Path path = this.paths.get(ball);
+            if (path == null) {
+                path = new Path();
+                this.paths.put(ball, path);
+            }
+            path.seenAt = this.epoch;
+            if (path.isValid(dx, dy, blocks, this.game.getEnvironment())) {
+                this.cacheHits++;
+            } else {
+                predict(ball, path, paddleTop, blocks);
+            }
+            if (!path.lands) {
+                continue;
+            }
+            boolean reachable = canReach(paddle, path);
+            if (first == null || (reachable && !firstReachable)
+                    || (reachable == firstReachable && path.landingTick < first.landingTick)) {
+                first = path;
+                firstReachable = reachable;
+            }
+        }
+        if (this.paths.size() > count) {
+            this.paths.values().removeIf(p -> p.seenAt != this.epoch);
+        }
+
+        if (first != null) {
+            // Catch the ball off center, so it doesn't go straight up, toward the middle of the screen. Near a
+            // side of the area the paddle can't get past the ball, so it catches it with its other half.
+            Rectangle area = this.game.getPaddle().getArea();
+            double half = paddle.getWidth() / 2;
+            double offset = paddle.getWidth() * AIM_OFFSET;
+            double target = first.landingX + (first.landingX < this.game.getWidth() / 2.0 ? -offset : offset);
+            if (target < area.getStartX() + half || target > area.getEndX() - half) {
+                target = 2 * first.landingX - target;
+            }
+            target = Math.min(Math.max(target, area.getStartX() + half), area.getEndX() - half);
+            double center = paddle.getStartX() + half;
+            double step = this.game.getPaddle().getMoveStep();
+            // Never step past a side of the area, where the paddle wraps around.
+            if (target < center - DEAD_ZONE && paddle.getStartX() - step >= area.getStartX()) {
+                this.action = ActionKeyboard.LEFT;
+            } else if (target > center + DEAD_ZONE && paddle.getEndX() + step <= area.getEndX()) {
+                this.action = ActionKeyboard.RIGHT;
+            }
+        }
+    }
+
+    /**
+     * Checks if the paddle can get under the landing point of a path in time.
+     *
+     * @param paddle the rectangle of the paddle
+     * @param path   the path
+     * @return true if the paddle can catch the ball, false otherwise
+     */
+    private boolean canReach(Rectangle paddle, Path path) {
+        double center = paddle.getStartX() + paddle.getWidth() / 2;
+        double distance = Math.max(0, Math.abs(path.landingX - center) - paddle.getWidth() / 2);
+        return distance <= (path.landingTick - this.game.getTicks()) * this.game.getPaddle().getMoveStep();
+    }
+
+    /**
+     * Casts the path of a ball until it reaches the height of the paddle, or
+     * bounces too many times.
+     *
+     * @param ball      the ball
+     * @param path      the path to fill
+     * @param paddleTop the height of the paddle's upper side
+     * @param blocks    the number of bricks left
+     */
+    private void predict(Hitter ball, Path path, double paddleTop, int blocks) {
+        this.predictions++;
+        GameEnvironment environment = this.game.getEnvironment();
+        path.reset(ball.getDx(), ball.getDy(), blocks);
+        double x = ball.getX();
+        double y = ball.getY();
+        double dx = ball.getDx();
+        double dy = ball.getDy();
+        double ticks = 0;
+        for (int bounce = 0; bounce <= MAX_BOUNCES; bounce++) {
+            Collidable c = environment.castRay(x, y, dx * LEG_TICKS, dy * LEG_TICKS, this.hit);
+            double t = c != null ? this.hit.getT() * LEG_TICKS : Double.POSITIVE_INFINITY;
+            double toPaddle = dy > 0 ? (paddleTop - y) / dy : Double.POSITIVE_INFINITY;
+            if (toPaddle <= t || c == this.game.getPaddle()) {
+                double reach = Math.min(toPaddle, t);
+                path.land(x + dx * reach, this.game.getTicks() + ticks + reach);
+                return;
+            }
+            if (c == null) {
+                return;
+            }
+            path.bounceOff(c);
+            x += dx * t;
+            y += dy * t;
+            ticks += t;
+            int face = this.hit.getFace();
+            if ((face & (RayHit.LEFT | RayHit.RIGHT)) != 0) {
+                dx = -dx;
+            }
+            if ((face & (RayHit.TOP | RayHit.BOTTOM)) != 0) {
+                dy = -dy;
+            }
+            x += dx * NUDGE;
+            y += dy * NUDGE;
+        }
+    }
+
+    /**
+     * Gets the number of paths cast so far.
+     *
+     * @return the number of predictions
+     */
+    public long getPredictions() {
+        return this.predictions;
+    }
+
+    /**
+     * Gets the number of times a ball kept its cached path.
+     *
+     * @return the number of cache hits
+     */
+    public long getCacheHits() {
+        return this.cacheHits;
+    }
+
+    /**
+     * Checks if a key is pressed by the move picked for the current tick.
+     *
+     * @param key the key to check
+     * @return true if the move presses the key, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return this.action == ActionKeyboard.LEFT;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return this.action == ActionKeyboard.RIGHT;
+        }
+        return false;
+    }
+
+    /**
+     * The predicted path of a ball: the velocity it was cast with, the
+     * collidables it bounces off, and where and when it reaches the paddle.
+     */
+    private static class Path {
+        private double dx;
+        private double dy;
+        private int blocks;
+        private final List<Collidable> bounces = new ArrayList<Collidable>(MAX_BOUNCES);
+        private boolean throughField;
+        private boolean lands;
+        private double landingX;
+        private double landingTick;
+        private int seenAt;
+
+        void reset(double vx, double vy, int blocksLeft) {
+            this.dx = vx;
+            this.dy = vy;
+            this.blocks = blocksLeft;
+            this.bounces.clear();
+            this.throughField = false;
+            this.lands = false;
+        }
+
+        void bounceOff(Collidable c) {
+            this.bounces.add(c);
+            if (!(c instanceof Block) && !(c instanceof ArenaBounds)) {
+                this.throughField = true;
+            }
+        }
+
+        void land(double x, double tick) {
+            this.lands = true;
+            this.landingX = x;
+            this.landingTick = tick;
+        }
+
+        boolean isValid(double vx, double vy, int blocksLeft, GameEnvironment environment) {
+            if (vx != this.dx || vy != this.dy || (this.throughField && blocksLeft != this.blocks)) {
+                return false;
+            }
+            for (int i = 0; i < this.bounces.size(); i++) {
+                if (!environment.contains(this.bounces.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
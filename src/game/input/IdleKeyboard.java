@@ -0,0 +1,24 @@
+package game.input;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The IdleKeyboard class is a KeyboardSensor on which no key is ever pressed.
+ * It is the default input source of a headless game.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-14
+ */
+public class IdleKeyboard implements KeyboardSensor {
+    /**
+     * Checks if a key is pressed.
+     *
+     * @param key the key to check
+     * @return always false
+     */
+    @Override
+    public boolean isPressed(String key) {
+        return false;
+    }
+}
@@ -0,0 +1,20 @@
+package game.input;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The InputSource interface is a KeyboardSensor whose state only changes between
+ * ticks. The game calls {@link #tick()} once before every tick, so every read
+ * during a tick sees the same keys, and the input of a run can be recorded and
+ * replayed tick by tick.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-26
+ */
+public interface InputSource extends KeyboardSensor {
+    /**
+     * Moves the input to the next tick.
+     */
+    void tick();
+}
@@ -0,0 +1,287 @@
+package game.input;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The Recording class holds the input of a run: the seed of the game, the
+ * options that change the simulation, and the paddle keys of every tick packed
+ * into 2 bits, so an hour of play takes about 54KB. The final tick count and
+ * score and a hash of the final state of the world are kept too, so a replay
+ * can check that it reproduced the run. A game
+ * played on a level file also keeps the path and checksum of the file and its
+ * chunk size, so a replay plays the same level.
+ * <p>
+ * File layout (big-endian): magic, version, seed, extra balls, threads, option
+ * flags, level path (empty for none), level checksum, chunk size, ticks, score,
+ * state hash, then the packed keys.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.2
+ * @since 2024-03-26
+ */
+public class Recording {
+    /** The key bit of the left arrow. */
+    public static final int LEFT = 1;
+    /** The key bit of the right arrow. */
+    public static final int RIGHT = 2;
+    /** The option flag of a game whose bricks are a tile map. */
+    public static final int OPTION_TILES = 1;
+    /** The option flag of a game whose balls bounce off each other. */
+    public static final int OPTION_BALL_COLLISIONS = 2;
+
+    private static final int MAGIC = 0x42525031;
+    private static final int VERSION = 4;
+    private static final int TICKS_PER_BYTE = 4;
+    private static final int BITS_PER_TICK = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long seed;
+    private int balls;
+    private int threads;
+    private int options = 0;
+    private String level = null;
+    private long levelChecksum = 0;
+    private double chunkSize = 0;
+    private long ticks = 0;
+    private int score = 0;
+    private long stateHash = 0;
+    private byte[] keys = new byte[INITIAL_CAPACITY];
+
+    /**
+     * Constructs an empty recording.
+     *
+     * @param seed    the seed of the game's random generator
+     * @param balls   the number of extra balls
+     * @param threads the number of threads moving the balls
+     */
+    public Recording(long seed, int balls, int threads) {
+        this.seed = seed;
+        this.balls = balls;
+        this.threads = threads;
+    }
+
+    /**
+     * Appends the keys of the next tick.
+     *
+     * @param keyBits the LEFT and RIGHT bits of the pressed keys
+     */
+    public void append(int keyBits) {
+        int index = (int) (this.ticks / TICKS_PER_BYTE);
+        if (index == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, this.keys.length * 2);
+        }
+        int shift = (int) (this.ticks % TICKS_PER_BYTE) * BITS_PER_TICK;
+        this.keys[index] |= (byte) ((keyBits & (LEFT | RIGHT)) << shift);
+        this.ticks++;
+    }
+
+    /**
+     * Gets the keys of a tick.
+     *
+     * @param tick the tick, from 0
+     * @return the LEFT and RIGHT bits of the keys, or 0 after the last tick
+     */
+    public int keysAt(long tick) {
+        if (tick < 0 || tick >= this.ticks) {
+            return 0;
+        }
+        int shift = (int) (tick % TICKS_PER_BYTE) * BITS_PER_TICK;
+        return (this.keys[(int) (tick / TICKS_PER_BYTE)] >> shift) & (LEFT | RIGHT);
+    }
+
+    /**
+     * Gets the seed of the game's random generator.
+     *
+     * @return the seed
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Gets the number of extra balls.
+     *
+     * @return the number of extra balls
+     */
+    public int getBalls() {
+        return this.balls;
+    }
+
+    /**
+     * Gets the number of threads moving the balls.
+     *
+     * @return the number of threads
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Gets the option flags of the recorded game.
+     *
+     * @return the option flags
+     */
+    public int getOptions() {
+        return this.options;
+    }
+
+    /**
+     * Sets the option flags of the recorded game.
+     *
+     * @param flags the option flags, like OPTION_TILES
+     */
+    public void setOptions(int flags) {
+        this.options = flags;
+    }
+
+    /**
+     * Gets the path of the level file of the recorded game.
+     *
+     * @return the path, or null if the game used the basic triangle
+     */
+    public String getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the checksum of the level file of the recorded game.
+     *
+     * @return the checksum, see LevelFile.checksum()
+     */
+    public long getLevelChecksum() {
+        return this.levelChecksum;
+    }
+
+    /**
+     * Gets the chunk size of the level of the recorded game.
+     *
+     * @return the chunk size, or 0 if the level was not split into chunks
+     */
+    public double getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Sets the level file of the recorded game.
+     *
+     * @param path     the path of the level file
+     * @param checksum the checksum of the level file
+     * @param size     the chunk size, or 0 if the level is not split into chunks
+     */
+    public void setLevel(String path, long checksum, double size) {
+        this.level = path;
+        this.levelChecksum = checksum;
+        this.chunkSize = size;
+    }
+
+    /**
+     * Gets the number of recorded ticks.
+     *
+     * @return the number of ticks
+     */
+    public long getTicks() {
+        return this.ticks;
+    }
+
+    /**
+     * Gets the score at the end of the recorded run.
+     *
+     * @return the final score
+     */
+    public int getScore() {
+        return this.score;
+    }
+
+    /**
+     * Sets the score at the end of the recorded run.
+     *
+     * @param finalScore the final score
+     */
+    public void setScore(int finalScore) {
+        this.score = finalScore;
+    }
+
+    /**
+     * Gets the hash of the state of the world at the end of the recorded run.
+     *
+     * @return the state hash, see Game.stateHash()
+     */
+    public long getStateHash() {
+        return this.stateHash;
+    }
+
+    /**
+     * Sets the hash of the state of the world at the end of the recorded run.
+     *
+     * @param hash the final state hash
+     */
+    public void setStateHash(long hash) {
+        this.stateHash = hash;
+    }
+
+    /**
+     * Writes the recording to a file.
+     *
+     * @param path the file to write
+     * @throws IOException if the file can't be written
+     */
+    public void save(String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(this.seed);
+            out.writeInt(this.balls);
+            out.writeInt(this.threads);
+            out.writeInt(this.options);
+            out.writeUTF(this.level == null ? "" : this.level);
+            out.writeLong(this.levelChecksum);
+            out.writeDouble(this.chunkSize);
+            out.writeLong(this.ticks);
+            out.writeInt(this.score);
+            out.writeLong(this.stateHash);
+            out.write(this.keys, 0, byteCount(this.ticks));
+        }
+    }
+
+    /**
+     * Reads a recording from a file.
+     *
+     * @param path the file to read
+     * @return the recording
+     * @throws IOException if the file can't be read or isn't a recording
+     */
+    public static Recording load(String path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException(path + " is not a recording");
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported recording version " + version);
+            }
+            Recording recording = new Recording(in.readLong(), in.readInt(), in.readInt());
+            recording.options = in.readInt();
+            String level = in.readUTF();
+            recording.level = level.isEmpty() ? null : level;
+            recording.levelChecksum = in.readLong();
+            recording.chunkSize = in.readDouble();
+            recording.ticks = in.readLong();
+            recording.score = in.readInt();
+            recording.stateHash = in.readLong();
+            recording.keys = new byte[Math.max(INITIAL_CAPACITY, byteCount(recording.ticks))];
+            in.readFully(recording.keys, 0, byteCount(recording.ticks));
+            return recording;
+        }
+    }
+
+    private static int byteCount(long tickCount) {
+        return (int) ((tickCount + TICKS_PER_BYTE - 1) / TICKS_PER_BYTE);
+    }
+}
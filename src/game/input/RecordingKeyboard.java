@@ -0,0 +1,63 @@
+package game.input;
+
+import biuoop.KeyboardSensor;
+
+/**
+ * The RecordingKeyboard class wraps another KeyboardSensor. At every tick it
+ * latches the arrow keys of the wrapped sensor, answers with the latched keys
+ * for the rest of the tick, and appends them to a recording. A wrapped input
+ * source (like the autopilot) is moved to the next tick first.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-26
+ */
+public class RecordingKeyboard implements InputSource {
+    private KeyboardSensor keyboard;
+    private Recording recording;
+    private int keys = 0;
+
+    /**
+     * Constructs a recording keyboard.
+     *
+     * @param keyboard  the sensor to read the keys from
+     * @param recording the recording to append the keys to
+     */
+    public RecordingKeyboard(KeyboardSensor keyboard, Recording recording) {
+        this.keyboard = keyboard;
+        this.recording = recording;
+    }
+
+    @Override
+    public void tick() {
+        if (this.keyboard instanceof InputSource) {
+            ((InputSource) this.keyboard).tick();
+        }
+        this.keys = 0;
+        if (this.keyboard.isPressed(LEFT_KEY)) {
+            this.keys |= Recording.LEFT;
+        }
+        if (this.keyboard.isPressed(RIGHT_KEY)) {
+            this.keys |= Recording.RIGHT;
+        }
+        this.recording.append(this.keys);
+    }
+
+    /**
+     * Checks if a key was pressed when the current tick started. Only the arrow
+     * keys are latched, other keys are passed to the wrapped sensor.
+     *
+     * @param key the key to check
+     * @return true if the key is pressed, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (this.keys & Recording.LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (this.keys & Recording.RIGHT) != 0;
+        }
+        return this.keyboard.isPressed(key);
+    }
+}
@@ -0,0 +1,47 @@
+package game.input;
+
+/**
+ * The ReplayKeyboard class plays the arrow keys of a recording back, one tick
+ * at a time. After the last recorded tick no key is pressed.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-26
+ */
+public class ReplayKeyboard implements InputSource {
+    private Recording recording;
+    private long tick = -1;
+    private int keys = 0;
+
+    /**
+     * Constructs a keyboard replaying the given recording.
+     *
+     * @param recording the recording to replay
+     */
+    public ReplayKeyboard(Recording recording) {
+        this.recording = recording;
+    }
+
+    @Override
+    public void tick() {
+        this.tick++;
+        this.keys = this.recording.keysAt(this.tick);
+    }
+
+    /**
+     * Checks if a key is pressed in the current tick of the recording.
+     *
+     * @param key the key to check
+     * @return true if the key is pressed, false otherwise
+     */
+    @Override
+    public boolean isPressed(String key) {
+        if (LEFT_KEY.equals(key)) {
+            return (this.keys & Recording.LEFT) != 0;
+        }
+        if (RIGHT_KEY.equals(key)) {
+            return (this.keys & Recording.RIGHT) != 0;
+        }
+        return false;
+    }
+}
@@ -1,19 +1,25 @@
 package game.interfaces;
 import java.util.List;
 
+import game.informative.CollisionInfo;
 import gui.Point;
+import gui.RayHit;
 import gui.Velocity;
 import gui.shapes.Rectangle;
-import game.objects.Ball;
 
 /**
  * The Collidable interface represents objects that can be collided with in a 2D
  * space.
  * It defines methods for obtaining the collision rectangle, handling hits, and
  * retrieving collision points.
+ * Ray queries default to the collision rectangle; a collidable with a finer
+ * shape inside its rectangle (like a tile map) overrides them.
+ * A hit comes with the normal and time of impact found by the ray query, so a
+ * collidable can reflect the velocity without working out the face it was hit
+ * on again.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.2024
+ * @version 1.2026
  * @since 2024-21-01
  */
 public interface Collidable {
@@ -32,11 +38,12 @@ public interface Collidable {
      * object inflicted.
      *
      * @param hitter the ball the block got hit with
-     * @param collisionPoint  the point of collision
+     * @param collision       the collision: its point, time of impact and the
+     *                        normal of the face hit
      * @param currentVelocity the current velocity of the colliding object
      * @return the new velocity after the hit
      */
-    Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity);
+    Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity);
 
     /**
      * Gets the collision points of the object.
@@ -46,4 +53,42 @@ public interface Collidable {
      */
     List<Point> getCollisionPoints();
 
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first hits the
+     * object.
+     *
+     * @param x0 the x-coordinate of the segment start
+     * @param y0 the y-coordinate of the segment start
+     * @param dx the x-component of the segment
+     * @param dy the y-component of the segment
+     * @return the hit fraction in [0, 1], or positive infinity on a miss
+     */
+    default double rayIntersection(double x0, double y0, double dx, double dy) {
+        return getCollisionRectangle().rayIntersection(x0, y0, dx, dy);
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first hits the
+     * object, and which face it crossed.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the result to fill with the hit fraction and face
+     * @return true if the segment hits the object, false otherwise
+     */
+    default boolean rayCast(double x0, double y0, double dx, double dy, RayHit hit) {
+        return getCollisionRectangle().rayCast(x0, y0, dx, dy, hit);
+    }
+
+    /**
+     * Checks if the object is exactly its collision rectangle, which never moves.
+     * The ray queries of such an object can be batched over its bounds.
+     *
+     * @return true for a fixed box, false otherwise
+     */
+    default boolean isStaticBox() {
+        return false;
+    }
 }
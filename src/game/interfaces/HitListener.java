@@ -1,13 +1,12 @@
 package game.interfaces;
 import game.objects.Block;
-import game.objects.Ball;
 
 /**
  * The HitListener interface represents an object that can handle hit events.
- * Implementing classes should define the behavior when a specific object (beingHit) is hit by a Ball (hitter).
+ * Implementing classes should define the behavior when a specific object (beingHit) is hit by a ball (hitter).
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.0
+ * @version 1.1
  * @since 2024-23-02
  */
 public interface HitListener {
@@ -15,8 +14,8 @@ public interface HitListener {
     * This method is called whenever the beingHit object is hit.
     *
     * @param beingHit the Block that is being hit
-    * @param hitter   the Ball that is doing the hitting
+    * @param hitter   the ball that is doing the hitting
     */
-   void hitEvent(Block beingHit, Ball hitter);
+   void hitEvent(Block beingHit, Hitter hitter);
 }
 
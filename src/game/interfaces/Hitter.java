@@ -0,0 +1,87 @@
+package game.interfaces;
+
+import java.awt.Color;
+
+import game.Game;
+
+/**
+ * The Hitter interface represents a ball as collidables, hit listeners and the
+ * players of the game see it: where it is, how it moves, its size and color, and
+ * how to take it out of the game. A Ball keeps its own state, while a BallView
+ * reads and writes the state of a ball held by a BallSystem.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-20
+ */
+public interface Hitter {
+   /**
+    * Gets the x-coordinate of the center of the ball.
+    *
+    * @return the x-coordinate
+    */
+   double getX();
+
+   /**
+    * Gets the y-coordinate of the center of the ball.
+    *
+    * @return the y-coordinate
+    */
+   double getY();
+
+   /**
+    * Gets the x-component of the velocity of the ball.
+    *
+    * @return the x-component of the velocity
+    */
+   double getDx();
+
+   /**
+    * Gets the y-component of the velocity of the ball.
+    *
+    * @return the y-component of the velocity
+    */
+   double getDy();
+
+   /**
+    * Gets the radius of the ball.
+    *
+    * @return the radius
+    */
+   int getSize();
+
+   /**
+    * Gets the color of the ball.
+    *
+    * @return the color
+    */
+   Color getColor();
+
+   /**
+    * Sets the color of the ball.
+    *
+    * @param c the new color
+    */
+   void setColor(Color c);
+
+   /**
+    * Gets the id of the ball in the hit event queue of its game.
+    *
+    * @return the id, or -1 if the ball has none
+    */
+   int getHitId();
+
+   /**
+    * Sets the id of the ball in the hit event queue of its game.
+    *
+    * @param id the id, or -1 to clear it
+    */
+   void setHitId(int id);
+
+   /**
+    * Removes the ball from the game.
+    *
+    * @param g the game from which to remove the ball
+    */
+   void removeFromGame(Game g);
+}
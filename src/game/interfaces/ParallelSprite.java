@@ -0,0 +1,37 @@
+package game.interfaces;
+
+/**
+ * The ParallelSprite interface represents a sprite made of independent units
+ * (like balls) that may be moved by different threads at the same time. A unit
+ * may only change its own state while it moves; any change to the rest of the
+ * game has to go through hit events. The events are dispatched to the hit
+ * listeners once the tick has moved every sprite, so what the listeners do (like
+ * removing a block) is not seen by the other units until the next tick.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-20
+ */
+public interface ParallelSprite extends Sprite {
+    /**
+     * Gets the number of independent units of the sprite.
+     *
+     * @return the number of units
+     */
+    int parallelUnits();
+
+    /**
+     * Called on the game thread before the units are moved, so the sprite can get
+     * ready (for example, drop units removed during the previous tick).
+     */
+    void beginTimePassed();
+
+    /**
+     * Notifies the units in the range [from, to) that time has passed. Disjoint
+     * ranges may be called from different threads at the same time.
+     *
+     * @param from the first unit
+     * @param to   the unit after the last one
+     */
+    void timePassed(int from, int to);
+}
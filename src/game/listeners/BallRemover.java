@@ -3,7 +3,7 @@ package game.listeners;
 import game.Game;
 import game.informative.Counter;
 import game.interfaces.HitListener;
-import game.objects.Ball;
+import game.interfaces.Hitter;
 import game.objects.Block;
 
 /**
@@ -11,7 +11,7 @@ import game.objects.Block;
  * the count of remaining balls. It implements the HitListener interface.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.1
+ * @version 1.2
  * @since 2024-23-02
  */
 public class BallRemover implements HitListener {
@@ -36,7 +36,7 @@ public class BallRemover implements HitListener {
     * @param beingHit the block being hit (not used in this context)
     * @param hitter   the ball that hits the block
     */
-   public void hitEvent(Block beingHit, Ball hitter) {
+   public void hitEvent(Block beingHit, Hitter hitter) {
       hitter.removeFromGame(game);
       remainingBalls.decrease(1);
    }
@@ -3,7 +3,7 @@ package game.listeners;
 import game.Game;
 import game.informative.Counter;
 import game.interfaces.HitListener;
-import game.objects.Ball;
+import game.interfaces.Hitter;
 import game.objects.Block;
 
 
@@ -12,7 +12,7 @@ import game.objects.Block;
  * of the remaining number of blocks. It implements the HitListener interface.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.1
+ * @version 1.2
  * @since 2024-23-02
  */
 public class BlockRemover implements HitListener {
@@ -37,7 +37,7 @@ public class BlockRemover implements HitListener {
     * @param beingHit the block being hit
     * @param hitter   the ball that hits the block
     */
-   public void hitEvent(Block beingHit, Ball hitter) {
+   public void hitEvent(Block beingHit, Hitter hitter) {
       beingHit.removeFromGame(game);
       beingHit.removeHitListener(this);
       this.remainingBlocks.decrease(1);
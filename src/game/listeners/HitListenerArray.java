@@ -0,0 +1,70 @@
+package game.listeners;
+
+import java.util.Arrays;
+
+import game.interfaces.HitListener;
+import game.interfaces.HitNotifier;
+
+/**
+ * The HitListenerArray class is a copy-on-write array of hit listeners. Adding
+ * or removing a listener replaces the array, so a hit can be dispatched over
+ * the current array without copying it, even while listeners change.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-16
+ */
+public class HitListenerArray {
+   private static final HitListener[] NO_LISTENERS = new HitListener[0];
+
+   private HitListener[] listeners = NO_LISTENERS;
+
+   /**
+    * Adds a hit listener after the ones already in the array.
+    *
+    * @param hl the hit listener to add
+    */
+   public void add(HitListener hl) {
+      HitListener[] grown = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+      grown[this.listeners.length] = hl;
+      this.listeners = grown;
+   }
+
+   /**
+    * Removes the first occurrence of a hit listener.
+    *
+    * @param hl the hit listener to remove
+    */
+   public void remove(HitListener hl) {
+      for (int i = 0; i < this.listeners.length; i++) {
+         if (this.listeners[i].equals(hl)) {
+            HitListener[] shrunk = new HitListener[this.listeners.length - 1];
+            System.arraycopy(this.listeners, 0, shrunk, 0, i);
+            System.arraycopy(this.listeners, i + 1, shrunk, i, shrunk.length - i);
+            this.listeners = shrunk;
+            return;
+         }
+      }
+   }
+
+   /**
+    * Gets the current listeners. The array is never changed afterwards, and must
+    * not be changed by the caller.
+    *
+    * @return the listeners, in the order they were added
+    */
+   public HitListener[] get() {
+      return this.listeners;
+   }
+
+   /**
+    * Adds every listener to a hit notifier, in the order they were added.
+    *
+    * @param notifier the notifier to add the listeners to
+    */
+   public void addAllTo(HitNotifier notifier) {
+      for (HitListener hl : this.listeners) {
+         notifier.addHitListener(hl);
+      }
+   }
+}
@@ -1,9 +1,9 @@
 package game.listeners;
 
 import game.objects.Block;
-import game.objects.Ball;
 import game.informative.Counter;
 import game.interfaces.HitListener;
+import game.interfaces.Hitter;
 
 /**
  * The ScoreTrackingListener class is responsible for keeping track of the player's score
@@ -11,7 +11,7 @@ import game.interfaces.HitListener;
  * It implements the HitListener interface.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.1
+ * @version 1.2
  * @since 2024-24-02
  */
 public class ScoreTrackingListener implements HitListener {
@@ -32,7 +32,7 @@ public class ScoreTrackingListener implements HitListener {
     * @param beingHit the block being hit
     * @param hitter   the ball that hits the block
     */
-   public void hitEvent(Block beingHit, Ball hitter) {
+   public void hitEvent(Block beingHit, Hitter hitter) {
        this.currentScore.increase(1);
    }
 }
@@ -0,0 +1,190 @@
+package game.objects;
+
+import java.util.List;
+
+import game.Game;
+import game.informative.CollisionInfo;
+import game.interfaces.Collidable;
+import game.interfaces.Hitter;
+import gui.Point;
+import gui.RayHit;
+import gui.Velocity;
+import gui.shapes.Rectangle;
+
+/**
+ * The ArenaBounds class is the border of the game area as a single collidable:
+ * three walls (left, right and top) and a kill line across the bottom, each an
+ * axis-aligned plane. A trajectory is resolved with a division per axis it moves
+ * along instead of a slab test per rectangle, and the planes are one-sided:
+ * a ball that somehow got past a wall is sent back at once, and a ball at or
+ * below the kill line is killed, so not even the fastest ball can get out.
+ * A ball that reaches the kill line hits the kill line's block, which reports
+ * the hit to its listeners (like a BallRemover) the same way the death block
+ * always did; the walls just bounce the ball.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.2
+ * @since 2024-04-14
+ */
+public class ArenaBounds implements Collidable {
+    private static final double EPSILON = 0.001;
+
+    private final Rectangle area;
+    private final double left;
+    private final double top;
+    private final double right;
+    private final double killY;
+    private final Block killLine;
+
+    /**
+     * Constructs the border of a game area.
+     *
+     * @param area     the game area, whose left, upper and right sides are the
+     *                 walls
+     * @param killLine the block whose upper side is the kill line, and which
+     *                 reports the balls that reach it
+     */
+    public ArenaBounds(Rectangle area, Block killLine) {
+        this.area = area;
+        this.left = area.getStartX();
+        this.top = area.getStartY();
+        this.right = area.getEndX();
+        this.killY = killLine.getCollisionRectangle().getStartY();
+        this.killLine = killLine;
+    }
+
+    /**
+     * Gets the game area.
+     *
+     * @return the rectangle of the game area
+     */
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.area;
+    }
+
+    /**
+     * Gets the block that reports the balls reaching the kill line.
+     *
+     * @return the kill line block
+     */
+    public Block getKillLine() {
+        return this.killLine;
+    }
+
+    /**
+     * Gets the height of the kill line.
+     *
+     * @return the y-coordinate of the kill line
+     */
+    public double getKillY() {
+        return this.killY;
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first reaches
+     * a wall or the kill line.
+     *
+     * @param x0 the x-coordinate of the segment start
+     * @param y0 the y-coordinate of the segment start
+     * @param dx the x-component of the segment
+     * @param dy the y-component of the segment
+     * @return the hit fraction in [0, 1], or positive infinity on a miss
+     */
+    @Override
+    public double rayIntersection(double x0, double y0, double dx, double dy) {
+        return cast(x0, y0, dx, dy, null);
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first reaches
+     * a wall or the kill line. The face is the side of the arena that was
+     * reached, the kill line being the bottom.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the result to fill with the hit fraction and face
+     * @return true if the segment reaches the border, false otherwise
+     */
+    @Override
+    public boolean rayCast(double x0, double y0, double dx, double dy, RayHit hit) {
+        hit.reset();
+        return cast(x0, y0, dx, dy, hit) != Double.POSITIVE_INFINITY;
+    }
+
+    private double cast(double x0, double y0, double dx, double dy, RayHit hit) {
+        double tx = Double.POSITIVE_INFINITY;
+        int faceX = RayHit.NONE;
+        if (dx < 0) {
+            tx = x0 <= this.left ? 0 : (this.left - x0) / dx;
+            faceX = RayHit.LEFT;
+        } else if (dx > 0) {
+            tx = x0 >= this.right ? 0 : (this.right - x0) / dx;
+            faceX = RayHit.RIGHT;
+        }
+
+        double ty = Double.POSITIVE_INFINITY;
+        int faceY = RayHit.NONE;
+        if (y0 >= this.killY) {
+            ty = 0;
+            faceY = RayHit.BOTTOM;
+        } else if (dy > 0) {
+            ty = (this.killY - y0) / dy;
+            faceY = RayHit.BOTTOM;
+        } else if (dy < 0) {
+            ty = y0 <= this.top ? 0 : (this.top - y0) / dy;
+            faceY = RayHit.TOP;
+        }
+
+        double t = Math.min(tx, ty);
+        if (t > 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if (hit != null) {
+            hit.set(t, (t == tx ? faceX : RayHit.NONE) | (t == ty ? faceY : RayHit.NONE));
+        }
+        return t;
+    }
+
+    /**
+     * Handles a hit: a ball on the kill line hits the kill line's block, which
+     * reports it; a ball on a wall bounces off it.
+     *
+     * @param hitter          the ball that hit the border
+     * @param collision       the collision with the border
+     * @param currentVelocity the current velocity of the ball
+     * @return the new velocity of the ball after the hit
+     */
+    @Override
+    public Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity) {
+        if (collision.collisionPoint().getY() >= this.killY - EPSILON) {
+            return this.killLine.hit(hitter, collision, currentVelocity);
+        }
+        return currentVelocity.reflect(collision.normalX(), collision.normalY());
+    }
+
+    /**
+     * Gets the corners of the game area.
+     *
+     * @return a list of collision points
+     */
+    @Override
+    public List<Point> getCollisionPoints() {
+        return this.area.getPoints();
+    }
+
+    /**
+     * Adds the border to the game as a collidable, and lets the kill line's
+     * block report its hits through the game's hit event queue. The blocks of
+     * the arena are drawn separately.
+     *
+     * @param g the game to add the border to
+     */
+    public void addToGame(Game g) {
+        this.killLine.setHitEvents(g.getHitEvents());
+        g.getHitEvents().register(this.killLine);
+        g.addCollidable(this);
+    }
+}
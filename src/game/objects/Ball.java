@@ -7,10 +7,12 @@ import biuoop.DrawSurface;
 import game.Game;
 import game.GameEnvironment;
 import game.informative.CollisionInfo;
-import game.interfaces.Sprite;
+import game.interfaces.Collidable;
+import game.interfaces.Hitter;
+import game.interfaces.ParallelSprite;
 import gui.Point;
+import gui.RayHit;
 import gui.Velocity;
-import gui.Line;
 
 /**
  * Represents a ball in a 2D space.
@@ -18,21 +20,24 @@ import gui.Line;
  * It also includes methods for drawing, setting velocity, and moving the ball.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 117.2025
+ * @version 117.2028
  * @since 2024-21-01
  */
-public class Ball implements Sprite {
+public class Ball implements ParallelSprite, Hitter {
    private Point point;
    private int r;
    private java.awt.Color color;
    private Velocity velocity;
    private GameEnvironment gameEnvironment;
+   private RayHit rayHit;
+   private CollisionInfo collision = new CollisionInfo();
+   private int hitId = -1;
 
-   private static final int MIN_RADIUS = 5;
+   static final int MIN_RADIUS = 5;
    private static final int MAX_SPEED_RADIUS = 60;
    private static final double RAMP = 0.1;
    private static final double MIN_SPEED = 10;
-   private static final double EPSILON = 0.0001;
+   static final double EPSILON = 0.0001;
    private static final double ANGLE_RANGE = 360.0;
 
    /**
@@ -44,12 +49,13 @@ public class Ball implements Sprite {
     * @param gameEnvironment the environment of colliding object
     */
    public Ball(Point point, int r, java.awt.Color color, GameEnvironment gameEnvironment) {
-      this.point = point;
+      this.point = new Point(point);
       this.r = Math.max(Math.abs(r), MIN_RADIUS);
       this.color = color;
       this.gameEnvironment = gameEnvironment;
 
       this.velocity = new Velocity(0, 0);
+      this.rayHit = new RayHit();
    }
 
    /**
@@ -223,18 +229,27 @@ public class Ball implements Sprite {
    /**
     * Moves the ball one step according to its current velocity.
     * Handles collisions with objects in the specified GameEnvironment.
+    * The ray hit and the collision information are kept by the ball and reused,
+    * so a step allocates nothing besides the velocity a collidable returns.
     */
    public void moveOneStep() {
-      Point nextPoint = new Point(this.getX() + this.getDx(), this.getY() + this.getDy());
-      Line trajectory = new Line(this.point, nextPoint);
-      CollisionInfo collision = this.gameEnvironment.getClosestCollision(trajectory);
-
-      if (collision.collisionPoint() != null) {
-         this.point = collision.collisionPoint();
-         this.velocity = collision.collisionObject().hit(this, collision.collisionPoint(), this.velocity);
-         this.point = new Velocity(this.getDx() * EPSILON, this.getDy() * EPSILON).applyToPoint(this.point);
+      double x = this.getX();
+      double y = this.getY();
+      double dx = this.getDx();
+      double dy = this.getDy();
+      Collidable collidable = this.gameEnvironment.castRay(x, y, dx, dy, this.rayHit);
+
+      if (collidable != null) {
+         CollisionInfo collision = this.collision.setFromRayHit(collidable, x, y, dx, dy, this.rayHit);
+         double t = this.rayHit.getT();
+         this.point.setX(x + dx * t);
+         this.point.setY(y + dy * t);
+         this.velocity = collidable.hit(this, collision, this.velocity);
+         this.point.setX(this.getX() + this.getDx() * EPSILON);
+         this.point.setY(this.getY() + this.getDy() * EPSILON);
       } else {
-         this.point = this.getVelocity().applyToPoint(this.point);
+         this.point.setX(x + dx);
+         this.point.setY(y + dy);
       }
    }
 
@@ -243,19 +258,42 @@ public class Ball implements Sprite {
       moveOneStep();
    }
 
+   @Override
+   public int parallelUnits() {
+      return 1;
+   }
+
+   @Override
+   public void beginTimePassed() {
+   }
+
+   @Override
+   public void timePassed(int from, int to) {
+      moveOneStep();
+   }
+
    /**
     * Sets a random speed and direction for the ball within specified limits.
     * The speed is determined based on the ball's radius, ensuring it stays within
     * a defined range.
     */
    public void setSpeed() {
+      setSpeed(new Random());
+   }
+
+   /**
+    * Sets a random speed and direction for the ball, drawing the direction from
+    * the given generator so a seeded game can be reproduced.
+    *
+    * @param rand the random generator to draw the direction from
+    */
+   public void setSpeed(Random rand) {
       // Calculate the maximum allowed speed based on the RAMP and minimum speed
 
       // Calculate the speed within the allowed range
-      double speed = MIN_SPEED + (MAX_SPEED_RADIUS - this.r) * RAMP;
+      double speed = MIN_SPEED + (MAX_SPEED_RADIUS - this.getSize()) * RAMP;
 
       // Generate a random angle between 0 and 360 degrees
-      Random rand = new Random();
       double angle = rand.nextDouble() * ANGLE_RANGE;
 
       // Set the ball's velocity based on the calculated angle and speed
@@ -270,7 +308,7 @@ public class Ball implements Sprite {
     * @param speed the speed of the ball
     */
    public void fromAngleAndSpeed(double angle, double speed) {
-      this.velocity = Velocity.fromAngleAndSpeed(angle, speed);
+      this.setVelocity(Velocity.fromAngleAndSpeed(angle, speed));
    }
 
    /**
@@ -281,10 +319,29 @@ public class Ball implements Sprite {
     */
    public void removeFromGame(Game g) {
       g.removeSpite(this);
+      g.getHitEvents().unregister(this);
       this.setPoint(new Point(-100, -100));
       this.setVelocity(0, 0);
    }
 
+   /**
+    * Gets the id of the ball in the hit event queue of its game.
+    *
+    * @return the id, or -1 if the ball has none
+    */
+   public int getHitId() {
+      return this.hitId;
+   }
+
+   /**
+    * Sets the id of the ball in the hit event queue of its game.
+    *
+    * @param id the id, or -1 to clear it
+    */
+   public void setHitId(int id) {
+      this.hitId = id;
+   }
+
    /**
     * Returns a string representation of the object.
     *
@@ -292,6 +349,6 @@ public class Ball implements Sprite {
     */
    @Override
    public String toString() {
-      return "(" + this.getX() + "," + this.getY() + ") r:" + this.r;
+      return "(" + this.getX() + "," + this.getY() + ") r:" + this.getSize();
    }
 }
\ No newline at end of file
@@ -0,0 +1,564 @@
+package game.objects;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import biuoop.DrawSurface;
+
+import game.GameEnvironment;
+import game.informative.CollisionInfo;
+import game.interfaces.Collidable;
+import game.interfaces.ParallelSprite;
+import gui.RayHit;
+import gui.Velocity;
+
+/**
+ * The BallSystem class holds many balls as primitive arrays (struct of arrays)
+ * instead of one heap object per ball, and steps all of them in one tight loop.
+ * It is a single sprite, so tens of thousands of balls cost one entry in the
+ * SpriteCollection. Code that needs a ball object, like a Collidable or a
+ * HitListener, gets a lightweight {@link BallView} that reads and writes the
+ * arrays.
+ * Balls can also bounce off each other. The pairs are found by sort and sweep
+ * along x: the balls are kept in an order sorted by their left edge, which
+ * barely changes between ticks, so an insertion sort restores it in about
+ * linear time, and the sweep only compares balls whose x-extents overlap.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.5
+ * @since 2024-03-18
+ */
+public class BallSystem implements ParallelSprite {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int BALL_BYTES = Double.BYTES * 4 + Integer.BYTES * 2 + 1;
+
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] dx = new double[INITIAL_CAPACITY];
+    private double[] dy = new double[INITIAL_CAPACITY];
+    private int[] radius = new int[INITIAL_CAPACITY];
+    private int[] colorIndex = new int[INITIAL_CAPACITY];
+    private boolean[] alive = new boolean[INITIAL_CAPACITY];
+    private BallView[] views = new BallView[INITIAL_CAPACITY];
+    private int count = 0;
+    private boolean hasDead = false;
+
+    // Ball indexes sorted by left edge, kept only once ball collisions are used.
+    private int[] order = null;
+    private int orderCount = 0;
+    private int[] origin = new int[INITIAL_CAPACITY];
+    private int[] moved = new int[INITIAL_CAPACITY];
+
+    private volatile Color[] palette = new Color[0];
+    private GameEnvironment gameEnvironment;
+    private final ThreadLocal<RayHit> scratchHit = ThreadLocal.withInitial(RayHit::new);
+    private final ThreadLocal<CollisionInfo> scratchCollision = ThreadLocal.withInitial(CollisionInfo::new);
+
+    /**
+     * Constructs an empty ball system moving in the given environment.
+     *
+     * @param gameEnvironment the environment of colliding objects
+     */
+    public BallSystem(GameEnvironment gameEnvironment) {
+        this.gameEnvironment = gameEnvironment;
+    }
+
+    /**
+     * Adds a ball.
+     *
+     * @param px    the x-coordinate of the center
+     * @param py    the y-coordinate of the center
+     * @param vx    the delta for x in every frame
+     * @param vy    the delta for y in every frame
+     * @param r     the radius of the ball
+     * @param color the color of the ball
+     * @return the view of the new ball
+     */
+    public BallView add(double px, double py, double vx, double vy, int r, Color color) {
+        if (this.count == this.x.length) {
+            grow();
+        }
+        int i = this.count++;
+        this.x[i] = px;
+        this.y[i] = py;
+        this.dx[i] = vx;
+        this.dy[i] = vy;
+        this.radius[i] = Math.max(Math.abs(r), Ball.MIN_RADIUS);
+        this.colorIndex[i] = colorIndexOf(color);
+        this.alive[i] = true;
+        this.views[i] = new BallView(this, i);
+        if (this.order != null) {
+            this.order[this.orderCount++] = i;
+        }
+        return this.views[i];
+    }
+
+    /**
+     * Gets the number of balls, including balls removed during the current tick.
+     *
+     * @return the number of balls
+     */
+    public int size() {
+        return this.count;
+    }
+
+    /**
+     * Gets the view of a ball.
+     *
+     * @param i the index of the ball
+     * @return the view of the ball
+     */
+    public BallView getBall(int i) {
+        return this.views[i];
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeState(ByteBuffer)} writes.
+     *
+     * @return the size of the state in bytes
+     */
+    public int stateSize() {
+        int orderBytes = this.order != null ? Integer.BYTES * this.orderCount : 0;
+        return Integer.BYTES * (3 + this.palette.length) + BALL_BYTES * this.count + orderBytes;
+    }
+
+    /**
+     * Writes every ball, with its position, velocity, radius and color, and the
+     * sorted order of the ball collisions. Balls removed during the last tick are
+     * written too, marked as removed, so the slots match.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeState(ByteBuffer buffer) {
+        Color[] colors = this.palette;
+        buffer.putInt(this.count);
+        buffer.putInt(colors.length);
+        for (Color color : colors) {
+            buffer.putInt(color.getRGB());
+        }
+        buffer.putInt(this.order != null ? this.orderCount : -1);
+        for (int i = 0; i < this.count; i++) {
+            buffer.putDouble(this.x[i]);
+            buffer.putDouble(this.y[i]);
+            buffer.putDouble(this.dx[i]);
+            buffer.putDouble(this.dy[i]);
+            buffer.putInt(this.radius[i]);
+            buffer.putInt(this.colorIndex[i]);
+            buffer.put((byte) (this.alive[i] ? 1 : 0));
+        }
+        for (int k = 0; this.order != null && k < this.orderCount; k++) {
+            buffer.putInt(this.order[k]);
+        }
+    }
+
+    /**
+     * Replaces every ball with the ones written by
+     * {@link #writeState(ByteBuffer)}. The views of the balls that are kept stay
+     * valid; the views of the balls beyond the restored count are detached.
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readState(ByteBuffer buffer) {
+        int newCount = buffer.getInt();
+        int[] colorMap = new int[buffer.getInt()];
+        for (int k = 0; k < colorMap.length; k++) {
+            colorMap[k] = colorIndexOf(new Color(buffer.getInt()));
+        }
+        int newOrderCount = buffer.getInt();
+        while (this.x.length < newCount) {
+            grow();
+        }
+        for (int i = newCount; i < this.count; i++) {
+            this.views[i].detach();
+            this.views[i] = null;
+        }
+        boolean dead = false;
+        for (int i = 0; i < newCount; i++) {
+            this.x[i] = buffer.getDouble();
+            this.y[i] = buffer.getDouble();
+            this.dx[i] = buffer.getDouble();
+            this.dy[i] = buffer.getDouble();
+            this.radius[i] = buffer.getInt();
+            this.colorIndex[i] = colorMap[buffer.getInt()];
+            this.alive[i] = buffer.get() != 0;
+            dead |= !this.alive[i];
+            if (this.views[i] == null) {
+                this.views[i] = new BallView(this, i);
+            }
+        }
+        this.count = newCount;
+        this.hasDead = dead;
+        if (newOrderCount < 0) {
+            this.order = null;
+            this.orderCount = 0;
+            return;
+        }
+        if (this.order == null) {
+            this.order = new int[this.x.length];
+        }
+        for (int k = 0; k < newOrderCount; k++) {
+            this.order[k] = buffer.getInt();
+        }
+        this.orderCount = newOrderCount;
+    }
+
+    /**
+     * Moves every ball one step and drops the balls removed during the step.
+     */
+    @Override
+    public void timePassed() {
+        compact();
+        step(0, this.count, scratchHit());
+        compact();
+    }
+
+    @Override
+    public int parallelUnits() {
+        return this.count;
+    }
+
+    /**
+     * Drops the balls removed since the last step, before a parallel step.
+     */
+    @Override
+    public void beginTimePassed() {
+        compact();
+    }
+
+    @Override
+    public void timePassed(int from, int to) {
+        step(from, to, scratchHit());
+    }
+
+    /**
+     * Gets the ray hit of the calling thread, for the steps it runs.
+     *
+     * @return the ray hit of the thread
+     */
+    RayHit scratchHit() {
+        return this.scratchHit.get();
+    }
+
+    /**
+     * Moves the balls in the range [from, to) one step. Every ball only touches its
+     * own slots, so disjoint ranges may be stepped by different threads as long as
+     * each uses its own RayHit. The collision information is reused per thread;
+     * a hit still allocates the velocity handed to the collidable and the one it
+     * returns.
+     *
+     * @param from the first index to step
+     * @param to   the index after the last one to step
+     * @param hit  the scratch result for the ray casts
+     */
+    public void step(int from, int to, RayHit hit) {
+        CollisionInfo scratch = this.scratchCollision.get();
+        for (int i = from; i < to; i++) {
+            if (!this.alive[i]) {
+                continue;
+            }
+            double px = this.x[i];
+            double py = this.y[i];
+            double vx = this.dx[i];
+            double vy = this.dy[i];
+            Collidable collidable = this.gameEnvironment.castRay(px, py, vx, vy, hit);
+
+            if (collidable != null) {
+                CollisionInfo collision = scratch.setFromRayHit(collidable, px, py, vx, vy, hit);
+                double t = hit.getT();
+                this.x[i] = px + vx * t;
+                this.y[i] = py + vy * t;
+                Velocity v = collidable.hit(this.views[i], collision, new Velocity(vx, vy));
+                if (this.alive[i]) {
+                    this.dx[i] = v.getDx();
+                    this.dy[i] = v.getDy();
+                    this.x[i] += v.getDx() * Ball.EPSILON;
+                    this.y[i] += v.getDy() * Ball.EPSILON;
+                }
+            } else {
+                this.x[i] = px + vx;
+                this.y[i] = py + vy;
+            }
+        }
+    }
+
+    /**
+     * Draws every ball, switching the color only when it changes.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int current = -1;
+        for (int i = 0; i < this.count; i++) {
+            if (!this.alive[i]) {
+                continue;
+            }
+            if (this.colorIndex[i] != current) {
+                current = this.colorIndex[i];
+                d.setColor(this.palette[current]);
+            }
+            d.fillCircle((int) this.x[i], (int) this.y[i], this.radius[i]);
+        }
+    }
+
+    /**
+     * Marks a ball as removed. The slot is reused once the current step is over.
+     *
+     * @param i the index of the ball
+     */
+    void remove(int i) {
+        if (this.alive[i]) {
+            this.alive[i] = false;
+            this.dx[i] = 0;
+            this.dy[i] = 0;
+            this.hasDead = true;
+        }
+    }
+
+    /**
+     * Drops the removed balls by moving the last balls into their slots.
+     */
+    private void compact() {
+        if (!this.hasDead) {
+            return;
+        }
+        int oldCount = this.count;
+        for (int k = 0; k < oldCount; k++) {
+            this.origin[k] = k;
+        }
+        int i = 0;
+        while (i < this.count) {
+            if (this.alive[i]) {
+                i++;
+                continue;
+            }
+            this.views[i].detach();
+            int last = --this.count;
+            if (i != last) {
+                this.x[i] = this.x[last];
+                this.y[i] = this.y[last];
+                this.dx[i] = this.dx[last];
+                this.dy[i] = this.dy[last];
+                this.radius[i] = this.radius[last];
+                this.colorIndex[i] = this.colorIndex[last];
+                this.alive[i] = this.alive[last];
+                this.views[i] = this.views[last];
+                this.views[i].moveTo(i);
+                this.origin[i] = this.origin[last];
+            }
+            this.views[last] = null;
+        }
+        this.hasDead = false;
+        if (this.order != null) {
+            remapOrder(oldCount);
+        }
+    }
+
+    /**
+     * Follows the moves of the last compaction in the sorted order, dropping the
+     * removed balls. The balls that stay keep their positions, so the order stays
+     * sorted.
+     *
+     * @param oldCount the number of balls before the compaction
+     */
+    private void remapOrder(int oldCount) {
+        Arrays.fill(this.moved, 0, oldCount, -1);
+        for (int k = 0; k < this.count; k++) {
+            this.moved[this.origin[k]] = k;
+        }
+        int kept = 0;
+        for (int k = 0; k < this.orderCount; k++) {
+            int slot = this.moved[this.order[k]];
+            if (slot >= 0) {
+                this.order[kept++] = slot;
+            }
+        }
+        this.orderCount = kept;
+    }
+
+    /**
+     * Bounces the balls that touch each other and are moving closer, as an
+     * elastic collision where the mass of a ball grows with its area. Run once
+     * per tick after the balls moved, on a single thread.
+     */
+    public void collideBalls() {
+        if (this.order == null) {
+            this.order = new int[this.x.length];
+            for (int i = 0; i < this.count; i++) {
+                this.order[i] = i;
+            }
+            this.orderCount = this.count;
+        }
+        int[] sorted = this.order;
+        int n = this.orderCount;
+
+        // Insertion sort by left edge; nearly linear, since the balls barely moved.
+        for (int a = 1; a < n; a++) {
+            int ball = sorted[a];
+            double key = this.x[ball] - this.radius[ball];
+            int b = a - 1;
+            while (b >= 0 && this.x[sorted[b]] - this.radius[sorted[b]] > key) {
+                sorted[b + 1] = sorted[b];
+                b--;
+            }
+            sorted[b + 1] = ball;
+        }
+
+        // Sweep: only balls whose x-extents overlap can touch.
+        for (int a = 0; a < n; a++) {
+            int i = sorted[a];
+            if (!this.alive[i]) {
+                continue;
+            }
+            double right = this.x[i] + this.radius[i];
+            for (int b = a + 1; b < n; b++) {
+                int j = sorted[b];
+                if (this.x[j] - this.radius[j] > right) {
+                    break;
+                }
+                if (this.alive[j]) {
+                    bounce(i, j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounces two balls off each other if they overlap and are moving closer.
+     *
+     * @param i the index of the first ball
+     * @param j the index of the second ball
+     */
+    private void bounce(int i, int j) {
+        double nx = this.x[j] - this.x[i];
+        double ny = this.y[j] - this.y[i];
+        double reach = this.radius[i] + this.radius[j];
+        if (Math.abs(ny) >= reach) {
+            return;
+        }
+        double distanceSquared = nx * nx + ny * ny;
+        if (distanceSquared >= reach * reach || distanceSquared == 0) {
+            return;
+        }
+        // The speed at which the balls close in along the line between their centers.
+        double distance = Math.sqrt(distanceSquared);
+        nx /= distance;
+        ny /= distance;
+        double closing = (this.dx[i] - this.dx[j]) * nx + (this.dy[i] - this.dy[j]) * ny;
+        if (closing <= 0) {
+            return;
+        }
+        double massI = (double) this.radius[i] * this.radius[i];
+        double massJ = (double) this.radius[j] * this.radius[j];
+        double impulse = 2 * closing / (massI + massJ);
+        this.dx[i] -= impulse * massJ * nx;
+        this.dy[i] -= impulse * massJ * ny;
+        this.dx[j] += impulse * massI * nx;
+        this.dy[j] += impulse * massI * ny;
+    }
+
+    private void grow() {
+        int capacity = this.x.length * 2;
+        this.x = Arrays.copyOf(this.x, capacity);
+        this.y = Arrays.copyOf(this.y, capacity);
+        this.dx = Arrays.copyOf(this.dx, capacity);
+        this.dy = Arrays.copyOf(this.dy, capacity);
+        this.radius = Arrays.copyOf(this.radius, capacity);
+        this.colorIndex = Arrays.copyOf(this.colorIndex, capacity);
+        this.alive = Arrays.copyOf(this.alive, capacity);
+        this.views = Arrays.copyOf(this.views, capacity);
+        this.origin = new int[capacity];
+        this.moved = new int[capacity];
+        if (this.order != null) {
+            this.order = Arrays.copyOf(this.order, capacity);
+        }
+    }
+
+    private int colorIndexOf(Color color) {
+        Color[] colors = this.palette;
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i].equals(color)) {
+                return i;
+            }
+        }
+        return addColor(color);
+    }
+
+    private synchronized int addColor(Color color) {
+        // Another thread may have added the color since the lookup.
+        Color[] colors = this.palette;
+        for (int i = 0; i < colors.length; i++) {
+            if (colors[i].equals(color)) {
+                return i;
+            }
+        }
+        colors = Arrays.copyOf(colors, colors.length + 1);
+        colors[colors.length - 1] = new Color(color.getRGB());
+        this.palette = colors;
+        return colors.length - 1;
+    }
+
+    // Accessors used by the views.
+
+    /** Checks if a ball was not removed. */
+    boolean isAlive(int i) {
+        return this.alive[i];
+    }
+
+    /** Gets the x-coordinate of a ball. */
+    double getX(int i) {
+        return this.x[i];
+    }
+
+    /** Gets the y-coordinate of a ball. */
+    double getY(int i) {
+        return this.y[i];
+    }
+
+    /** Sets the center of a ball. */
+    void setPosition(int i, double px, double py) {
+        this.x[i] = px;
+        this.y[i] = py;
+    }
+
+    /** Gets the x-component of the velocity of a ball. */
+    double getDx(int i) {
+        return this.dx[i];
+    }
+
+    /** Gets the y-component of the velocity of a ball. */
+    double getDy(int i) {
+        return this.dy[i];
+    }
+
+    /** Sets the velocity of a ball. */
+    void setVelocity(int i, double vx, double vy) {
+        this.dx[i] = vx;
+        this.dy[i] = vy;
+    }
+
+    /** Gets the radius of a ball. */
+    int getRadius(int i) {
+        return this.radius[i];
+    }
+
+    /** Sets the radius of a ball. */
+    void setRadius(int i, int r) {
+        this.radius[i] = Math.max(Math.abs(r), Ball.MIN_RADIUS);
+    }
+
+    /** Gets the color of a ball. */
+    Color getColor(int i) {
+        return this.palette[this.colorIndex[i]];
+    }
+
+    /** Sets the color of a ball. */
+    void setColor(int i, Color color) {
+        this.colorIndex[i] = colorIndexOf(color);
+    }
+
+    /** Gets the environment the balls move in. */
+    GameEnvironment getGameEnvironment() {
+        return this.gameEnvironment;
+    }
+}
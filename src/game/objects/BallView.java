@@ -0,0 +1,160 @@
+package game.objects;
+
+import java.awt.Color;
+
+import game.Game;
+import game.interfaces.Hitter;
+import gui.Point;
+import gui.Velocity;
+
+/**
+ * The BallView class is a lightweight handle of a ball whose state lives in a
+ * BallSystem. It keeps only the system and the index of its slot, so it can be
+ * handed to collidables and hit listeners as a Hitter. A view of a removed ball
+ * is detached and reads as a still ball off the screen.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-18
+ */
+public class BallView implements Hitter {
+   private static final double OFF_SCREEN = -100;
+
+   private BallSystem system;
+   private int index;
+   private int hitId = -1;
+
+   /**
+    * Constructs a view of a slot of a ball system.
+    *
+    * @param system the system holding the ball
+    * @param index  the index of the ball in the system
+    */
+   BallView(BallSystem system, int index) {
+      this.system = system;
+      this.index = index;
+   }
+
+   /**
+    * Points the view at a new slot, after the system moved the ball.
+    *
+    * @param newIndex the new index of the ball
+    */
+   void moveTo(int newIndex) {
+      this.index = newIndex;
+   }
+
+   /**
+    * Detaches the view from the system, after the ball was dropped.
+    */
+   void detach() {
+      this.index = -1;
+   }
+
+   private boolean attached() {
+      return this.index >= 0;
+   }
+
+   @Override
+   public double getX() {
+      return attached() ? this.system.getX(this.index) : OFF_SCREEN;
+   }
+
+   @Override
+   public double getY() {
+      return attached() ? this.system.getY(this.index) : OFF_SCREEN;
+   }
+
+   @Override
+   public double getDx() {
+      return attached() ? this.system.getDx(this.index) : 0;
+   }
+
+   @Override
+   public double getDy() {
+      return attached() ? this.system.getDy(this.index) : 0;
+   }
+
+   @Override
+   public int getSize() {
+      return attached() ? this.system.getRadius(this.index) : Ball.MIN_RADIUS;
+   }
+
+   @Override
+   public Color getColor() {
+      return attached() ? this.system.getColor(this.index) : Color.BLACK;
+   }
+
+   @Override
+   public void setColor(Color c) {
+      if (attached()) {
+         this.system.setColor(this.index, c);
+      }
+   }
+
+   @Override
+   public int getHitId() {
+      return this.hitId;
+   }
+
+   @Override
+   public void setHitId(int id) {
+      this.hitId = id;
+   }
+
+   /**
+    * Moves the ball to a point.
+    *
+    * @param p the new center of the ball
+    */
+   public void setPoint(Point p) {
+      if (attached()) {
+         this.system.setPosition(this.index, p.getX(), p.getY());
+      }
+   }
+
+   /**
+    * Sets the velocity of the ball.
+    *
+    * @param v the new velocity of the ball
+    */
+   public void setVelocity(Velocity v) {
+      if (attached()) {
+         this.system.setVelocity(this.index, v.getDx(), v.getDy());
+      }
+   }
+
+   /**
+    * Sets the radius of the ball.
+    *
+    * @param radius the new radius of the ball
+    */
+   public void setSize(int radius) {
+      if (attached()) {
+         this.system.setRadius(this.index, radius);
+      }
+   }
+
+   /**
+    * Moves only this ball one step, through its system.
+    */
+   public void moveOneStep() {
+      if (attached()) {
+         this.system.step(this.index, this.index + 1, this.system.scratchHit());
+      }
+   }
+
+   /**
+    * Removes the ball from its system. The game itself doesn't hold the ball, so
+    * nothing else is removed.
+    *
+    * @param g the game from which to remove the ball
+    */
+   @Override
+   public void removeFromGame(Game g) {
+      if (attached()) {
+         this.system.remove(this.index);
+      }
+      g.getHitEvents().unregister(this);
+   }
+}
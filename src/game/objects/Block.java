@@ -1,15 +1,18 @@
 package game.objects;
 
 import java.awt.Color;
-import java.util.ArrayList;
 import java.util.List;
 import biuoop.DrawSurface;
 
 import game.Game;
+import game.HitEventQueue;
+import game.informative.CollisionInfo;
 import game.interfaces.Collidable;
+import game.interfaces.Hitter;
 import game.interfaces.Sprite;
 import game.interfaces.HitNotifier;
 import game.interfaces.HitListener;
+import game.listeners.HitListenerArray;
 import gui.Point;
 import gui.Velocity;
 import gui.shapes.Rectangle;
@@ -20,18 +23,21 @@ import gui.shapes.Rectangle;
  * It implements the Collidable interface and provides methods
  * to get its collision rectangle, handle hits, and obtain collision
  * points.
+ * The hit listeners are kept in a copy-on-write array, so listeners can be added
+ * or removed while a hit is dispatched without copying the listeners per hit.
+ * A hit reflects the velocity off the normal of the face the ray query found.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.3
+ * @version 1.7
  * @since 2024-23-01
  */
 public class Block implements Collidable, Sprite, HitNotifier {
     private Rectangle rect;
-    private List<HitListener> hitListeners = new ArrayList<>();
+    private HitListenerArray hitListeners = new HitListenerArray();
+    private HitEventQueue hitEvents = null;
+    private int hitId = -1;
     private static final Color BACKGROUND_COLOR = new Color(33, 33, 33);
 
-    private static final double EPSILON = 0.001;
-
     /**
      * Constructs a block with a specified rectangle.
      *
@@ -64,40 +70,31 @@ public class Block implements Collidable, Sprite, HitNotifier {
     }
 
     /**
-     * Handles a hit by calculating and returning the new velocity after the hit.
+     * Checks if the block is a fixed box, which it always is.
+     *
+     * @return true
+     */
+    @Override
+    public boolean isStaticBox() {
+        return true;
+    }
+
+    /**
+     * Handles a hit by reflecting the velocity off the normal of the face that
+     * was hit, and returning it.
      *
      * @param hitter          the ball that hit the block
-     * @param collisionPoint  the collision point with the block
+     * @param collision       the collision with the block
      * @param currentVelocity the current velocity of the ball
      * @return the new velocity of the ball after the hit
      */
     @Override
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
-        double dx = currentVelocity.getDx();
-        double dy = currentVelocity.getDy();
-
-        double newDx = dx;
-        double newDy = dy;
-
-        List<Point> points = rect.getPoints();
-        for (int i = 0; i < points.size(); i++) {
-            if (touchDirectionEdge(points.get(i).getX(), collisionPoint.getX(), EPSILON)) {
-                newDx = -dx;
-            }
-            if (touchDirectionEdge(points.get(i).getY(), collisionPoint.getY(), EPSILON)) {
-                newDy = -dy;
-            }
-        }
-
+    public Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity) {
         if (!ballColorMatch(hitter)) {
             this.notifyHit(hitter);
         }
 
-        return new Velocity(newDx, newDy);
-    }
-
-    private boolean touchDirectionEdge(double edge, double location, double threshold) {
-        return (Math.abs(edge - location) < threshold);
+        return currentVelocity.reflect(collision.normalX(), collision.normalY());
     }
 
     /**
@@ -139,7 +136,7 @@ public class Block implements Collidable, Sprite, HitNotifier {
      * @param ball the ball to check its color
      * @return true if the colors match, false otherwise
      */
-    public boolean ballColorMatch(Ball ball) {
+    public boolean ballColorMatch(Hitter ball) {
         if (!this.rect.getColor().equals(BACKGROUND_COLOR)) {
             if (ball.getColor().equals(this.rect.getColor())) {
                 return true;
@@ -172,6 +169,24 @@ public class Block implements Collidable, Sprite, HitNotifier {
         this.hitListeners.remove(hl);
     }
 
+    /**
+     * Gets the id of the block in the hit event queue of its game.
+     *
+     * @return the id, or -1 if the block has none
+     */
+    public int getHitId() {
+        return this.hitId;
+    }
+
+    /**
+     * Sets the id of the block in the hit event queue of its game.
+     *
+     * @param id the id, or -1 to clear it
+     */
+    public void setHitId(int id) {
+        this.hitId = id;
+    }
+
     /**
      * Performs a time-based operation for the block (no time-based operation for this class).
      */
@@ -180,24 +195,52 @@ public class Block implements Collidable, Sprite, HitNotifier {
     }
 
     /**
-     * Adds the block to the game by adding it to the collidables and sprites lists.
+     * Adds the block to the game by adding it to the collidables and to the static
+     * layer of the sprites, since a block never moves.
      *
      * @param g the game to add the block to
      */
     public void addToGame(Game g) {
+        this.hitEvents = g.getHitEvents();
+        this.hitEvents.register(this);
         g.addCollidable(this);
-        g.addSprite(this);
+        g.addStaticSprite(this);
+    }
+
+    /**
+     * Sets the hit event queue of a block that reports its hits without being
+     * added to the game itself, like a tile of a tile map.
+     *
+     * @param events the hit event queue of the game
+     */
+    void setHitEvents(HitEventQueue events) {
+        this.hitEvents = events;
     }
 
      /**
      * Removes the block from the game by removing it from the collidables and
-     * sprites lists.
+     * the static layer of the sprites.
      *
      * @param g the game to remove the block from
      */
     public void removeFromGame(Game g) {
         g.removeCollidable(this);
-        g.removeSpite(this);
+        g.removeStaticSprite(this);
+        g.getHitEvents().unregister(this);
+    }
+
+    /**
+     * Reports a hit event, through the game's hit event queue if the block was added
+     * to a game, so it is dispatched with the rest of the tick's hits.
+     *
+     * @param hitter the ball that hit the block
+     */
+    private void notifyHit(Hitter hitter) {
+        if (this.hitEvents != null) {
+            this.hitEvents.post(this, hitter);
+        } else {
+            dispatchHit(hitter);
+        }
     }
 
     /**
@@ -205,9 +248,9 @@ public class Block implements Collidable, Sprite, HitNotifier {
      *
      * @param hitter the ball that hit the block
      */
-    private void notifyHit(Ball hitter) {
-        // Make a copy of the hitListeners before iterating over them.
-        List<HitListener> listeners = new ArrayList<HitListener>(this.hitListeners);
+    public void dispatchHit(Hitter hitter) {
+        // Listener changes replace the array, so this snapshot stays intact.
+        HitListener[] listeners = this.hitListeners.get();
         // Notify all listeners about a hit event:
         for (HitListener hl : listeners) {
             hl.hitEvent(this, hitter);
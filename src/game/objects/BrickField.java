@@ -0,0 +1,329 @@
+package game.objects;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import biuoop.DrawSurface;
+
+import game.Game;
+import game.GridWalk;
+import game.LevelFile;
+import game.informative.CollisionInfo;
+import game.interfaces.Collidable;
+import game.interfaces.Hitter;
+import game.interfaces.HitListener;
+import game.interfaces.HitNotifier;
+import game.interfaces.Sprite;
+import gui.Point;
+import gui.RayHit;
+import gui.Velocity;
+import gui.shapes.Rectangle;
+
+/**
+ * The BrickField class puts the bricks of a LevelFile into a game as a single
+ * collidable. The bricks stay in the (shared, read-only) level file; the field
+ * only keeps a bit per brick telling if it was removed. A trajectory walks the
+ * cells of the level's spatial index and tests the bricks listed there.
+ * A brick that gets hit acts as a Block (see LevelBrick), with the same bounce,
+ * color matching and HitListener events as a brick of its own.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.5
+ * @since 2024-03-30
+ */
+public class BrickField implements Collidable, Sprite, HitNotifier {
+
+    private LevelFile level;
+    private long[] removed;
+    private int alive;
+
+    private FieldSupport<LevelBrick> support = new FieldSupport<LevelBrick>();
+
+    /**
+     * Constructs a field holding every brick of a level.
+     *
+     * @param level the level
+     */
+    public BrickField(LevelFile level) {
+        this.level = level;
+        this.removed = new long[(level.getBrickCount() + Long.SIZE - 1) / Long.SIZE];
+        this.alive = level.getBrickCount();
+    }
+
+    /**
+     * Gets the level of the field.
+     *
+     * @return the level
+     */
+    public LevelFile getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the number of bricks that were not removed.
+     *
+     * @return the number of bricks left
+     */
+    public int getAliveBricks() {
+        return this.alive;
+    }
+
+    /**
+     * Checks if a brick was not removed.
+     *
+     * @param brick the id of the brick
+     * @return true if the brick is still in the field, false otherwise
+     */
+    public boolean isAlive(int brick) {
+        return (this.removed[brick / Long.SIZE] & (1L << brick)) == 0;
+    }
+
+    /**
+     * Removes a brick from the field.
+     *
+     * @param brick the id of the brick
+     */
+    public void removeBrick(int brick) {
+        if (isAlive(brick)) {
+            this.removed[brick / Long.SIZE] |= 1L << brick;
+            this.alive--;
+            this.support.removeView(brick);
+        }
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeState(ByteBuffer)} writes: a bit per
+     * brick.
+     *
+     * @return the size of the state in bytes
+     */
+    public int stateSize() {
+        return this.removed.length * Long.BYTES;
+    }
+
+    /**
+     * Writes the bits of the removed bricks.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeState(ByteBuffer buffer) {
+        for (long word : this.removed) {
+            buffer.putLong(word);
+        }
+    }
+
+    /**
+     * Replaces the removed bricks with the ones written by
+     * {@link #writeState(ByteBuffer)}. Bricks removed since then are back.
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readState(ByteBuffer buffer) {
+        int removedCount = 0;
+        for (int i = 0; i < this.removed.length; i++) {
+            this.removed[i] = buffer.getLong();
+            removedCount += Long.bitCount(this.removed[i]);
+        }
+        this.alive = this.level.getBrickCount() - removedCount;
+        this.support.clearViews();
+    }
+
+    // Collidable
+
+    /**
+     * Gets the rectangle bounding every brick of the level.
+     *
+     * @return the bounding rectangle
+     */
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.level.getBounds();
+    }
+
+    /**
+     * Gets the corners of the rectangle bounding every brick of the level.
+     *
+     * @return a list of collision points
+     */
+    @Override
+    public List<Point> getCollisionPoints() {
+        return this.level.getBounds().getPoints();
+    }
+
+    @Override
+    public double rayIntersection(double x0, double y0, double dx, double dy) {
+        RayHit hit = this.support.scratchHit();
+        return castBricks(x0, y0, dx, dy, hit) >= 0 ? hit.getT() : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public boolean rayCast(double x0, double y0, double dx, double dy, RayHit hit) {
+        return castBricks(x0, y0, dx, dy, hit) >= 0;
+    }
+
+    /**
+     * Handles a hit on the brick the ray cast found, exactly like a Block of the
+     * brick's size and color would.
+     *
+     * @param hitter          the ball that hit the field
+     * @param collision       the collision with the field
+     * @param currentVelocity the current velocity of the ball
+     * @return the new velocity of the ball after the hit
+     */
+    @Override
+    public Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity) {
+        int brick = collision.part();
+        if (brick < 0 || !isAlive(brick)) {
+            return currentVelocity;
+        }
+        return brickView(brick).hit(hitter, collision, currentVelocity);
+    }
+
+    /**
+     * Finds the closest brick crossed by the segment from (x0, y0) to
+     * (x0 + dx, y0 + dy), walking only the index cells the segment crosses. Ties
+     * go to the brick that comes first in the level.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the result to fill with the hit fraction, face and brick id
+     * @return the id of the brick that was hit, or -1 on a miss
+     */
+    private int castBricks(double x0, double y0, double dx, double dy, RayHit hit) {
+        LevelFile lv = this.level;
+        if ((dx == 0 && dy == 0) || lv.getBrickCount() == 0) {
+            hit.reset();
+            return -1;
+        }
+        int columns = lv.getColumns();
+        int rows = lv.getRows();
+        int best = -1;
+        double bestT = Double.POSITIVE_INFINITY;
+
+        GridWalk walk = this.support.scratchWalk();
+        walk.start(lv.getCellSize(), x0, y0, dx, dy);
+        int lastCell = -1;
+        do {
+            int cell = Math.min(Math.max(walk.getColumn(), 0), columns - 1)
+                    + Math.min(Math.max(walk.getRow(), 0), rows - 1) * columns;
+            if (cell != lastCell) {
+                for (int k = lv.cellStart(cell); k < lv.cellStart(cell + 1); k++) {
+                    int brick = lv.cellBrick(k);
+                    if (!isAlive(brick)) {
+                        continue;
+                    }
+                    double minX = lv.getX(brick);
+                    double minY = lv.getY(brick);
+                    double t = Rectangle.boxIntersection(minX, minY, minX + lv.getWidth(brick),
+                            minY + lv.getHeight(brick), x0, y0, dx, dy, null);
+                    if (t < bestT || (t == bestT && best >= 0 && brick < best)) {
+                        best = brick;
+                        bestT = t;
+                    }
+                }
+                lastCell = cell;
+            }
+            // Nothing in a later cell can be closer than a hit before this cell's exit.
+            if (best >= 0 && bestT < walk.exitT()) {
+                break;
+            }
+        } while (walk.next());
+
+        if (best < 0) {
+            hit.reset();
+            return -1;
+        }
+        double minX = lv.getX(best);
+        double minY = lv.getY(best);
+        Rectangle.boxIntersection(minX, minY, minX + lv.getWidth(best), minY + lv.getHeight(best),
+                x0, y0, dx, dy, hit);
+        hit.set(hit.getT(), hit.getFace(), best);
+        return best;
+    }
+
+    /**
+     * Gets the block standing for a brick, creating it on its first hit.
+     *
+     * @param brick the id of the brick
+     * @return the block of the brick
+     */
+    private LevelBrick brickView(int brick) {
+        return this.support.view(brick, i -> new LevelBrick(this, i, this.level.getRectangle(i)));
+    }
+
+    // HitNotifier
+
+    /**
+     * Adds a hit listener, notified whenever a brick is hit.
+     *
+     * @param hl the hit listener to add
+     */
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.support.addHitListener(hl);
+    }
+
+    /**
+     * Removes a hit listener.
+     *
+     * @param hl the hit listener to remove
+     */
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.support.removeHitListener(hl);
+    }
+
+    // Sprite
+
+    /**
+     * Draws the bricks inside the surface that were not removed. Every brick is
+     * drawn from the index cell of its upper-left corner, so it is drawn once.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        LevelFile lv = this.level;
+        int columns = lv.getColumns();
+        int rows = lv.getRows();
+        int lastCol = Math.min((int) (d.getWidth() / lv.getCellSize()), columns - 1);
+        int lastRow = Math.min((int) (d.getHeight() / lv.getCellSize()), rows - 1);
+        for (int row = 0; row <= lastRow; row++) {
+            for (int col = 0; col <= lastCol; col++) {
+                int cell = col + row * columns;
+                for (int k = lv.cellStart(cell); k < lv.cellStart(cell + 1); k++) {
+                    int brick = lv.cellBrick(k);
+                    if (isAlive(brick) && homeCell(brick) == cell) {
+                        lv.drawBrick(d, brick);
+                    }
+                }
+            }
+        }
+    }
+
+    private int homeCell(int brick) {
+        LevelFile lv = this.level;
+        int col = Math.min(Math.max((int) Math.floor(lv.getX(brick) / lv.getCellSize()), 0), lv.getColumns() - 1);
+        int row = Math.min(Math.max((int) Math.floor(lv.getY(brick) / lv.getCellSize()), 0), lv.getRows() - 1);
+        return col + row * lv.getColumns();
+    }
+
+    /**
+     * Performs a time-based operation for the field (no time-based operation for this class).
+     */
+    @Override
+    public void timePassed() {
+    }
+
+    /**
+     * Adds the field to the game as a collidable and a sprite.
+     *
+     * @param g the game to add the field to
+     */
+    public void addToGame(Game g) {
+        this.support.setHitEvents(g.getHitEvents());
+        g.addCollidable(this);
+        g.addSprite(this);
+    }
+}
@@ -0,0 +1,80 @@
+package game.objects;
+
+import game.Game;
+import gui.shapes.Rectangle;
+
+/**
+ * The ChunkBrick class is the Block of a single brick of a ChunkedWorld. It only
+ * exists while the chunk holding the brick is loaded, and it only joins the
+ * collision queries: the world draws its bricks itself. Removing it from the
+ * game removes the brick from the world for good, while unloading its chunk
+ * just drops the block.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-02
+ */
+public class ChunkBrick extends Block {
+    private ChunkedWorld world;
+    private int chunk;
+    private int slot;
+
+    /**
+     * Constructs the block of a brick.
+     *
+     * @param world the world holding the brick
+     * @param chunk the chunk holding the brick
+     * @param slot  the position of the brick within its chunk
+     * @param rect  the rectangle covering the brick, in the brick's color
+     */
+    ChunkBrick(ChunkedWorld world, int chunk, int slot, Rectangle rect) {
+        super(rect);
+        this.world = world;
+        this.chunk = chunk;
+        this.slot = slot;
+    }
+
+    /**
+     * Gets the chunk holding the brick.
+     *
+     * @return the chunk index
+     */
+    public int getChunk() {
+        return this.chunk;
+    }
+
+    /**
+     * Adds the block to the collidables of the game. It isn't added as a sprite,
+     * since the world draws the bricks of every chunk, loaded or not.
+     *
+     * @param g the game to add the block to
+     */
+    @Override
+    public void addToGame(Game g) {
+        setHitEvents(g.getHitEvents());
+        g.getHitEvents().register(this);
+        g.addCollidable(this);
+    }
+
+    /**
+     * Removes the brick from the game and from its world.
+     *
+     * @param g the game to remove the brick from
+     */
+    @Override
+    public void removeFromGame(Game g) {
+        this.world.removeBrick(this.chunk, this.slot);
+        unload(g);
+    }
+
+    /**
+     * Drops the block from the collidables of the game, keeping the brick in its
+     * world. Used when the chunk of the brick is unloaded.
+     *
+     * @param g the game to drop the block from
+     */
+    void unload(Game g) {
+        g.removeCollidable(this);
+        g.getHitEvents().unregister(this);
+    }
+}
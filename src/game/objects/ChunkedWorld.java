@@ -0,0 +1,505 @@
+package game.objects;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import biuoop.DrawSurface;
+
+import game.Game;
+import game.LevelFile;
+import game.interfaces.Collidable;
+import game.interfaces.HitListener;
+import game.interfaces.HitNotifier;
+import game.interfaces.Sprite;
+import game.listeners.HitListenerArray;
+import gui.shapes.Rectangle;
+
+/**
+ * The ChunkedWorld class splits the bricks of a (possibly very large) level file
+ * into square chunks, and only keeps the chunks near the balls and the paddle in
+ * the game. A chunk is loaded when something it tracks gets within the
+ * activation distance of its bricks: a Block is made for each brick still
+ * standing and added to the collidables. Chunks nobody is near stay loaded until
+ * more than the allowed number of chunks are loaded, and then the least recently
+ * needed ones are dropped. The collidables, and the cost of the collision
+ * queries, so follow the active area instead of the size of the level.
+ * The world keeps a bitset of the removed bricks per chunk (allocated on the
+ * first removal), so a chunk that is loaded again only brings back the bricks
+ * still standing, and the slot of every brick within its chunk, so the bit of
+ * a brick is found without searching its chunk. It draws the bricks of the visible chunks itself, loaded or
+ * not.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.4
+ * @since 2024-04-02
+ */
+public class ChunkedWorld implements Sprite, HitNotifier {
+    private LevelFile level;
+    private double chunkSize;
+    private int columns;
+    private int rows;
+    private int[] chunkStarts;
+    private int[] chunkBricks;
+    private int[] brickSlots;
+    private float[] chunkBounds;
+    private double maxBrickSize = 0;
+    private long[][] removed;
+    private int alive;
+    private int stateWords = 0;
+
+    private double activationDistance;
+    private int maxLoadedChunks;
+    private Map<Integer, ChunkBrick[]> loaded = new LinkedHashMap<Integer, ChunkBrick[]>(16, 0.75f, true);
+    private int[] neededAt;
+    private int epoch = 0;
+    private int loadedBricks = 0;
+    private long loads = 0;
+    private long evictions = 0;
+
+    private Game game = null;
+    private HitListenerArray hitListeners = new HitListenerArray();
+    private List<Ball> balls = new ArrayList<Ball>();
+    private List<BallSystem> ballSystems = new ArrayList<BallSystem>();
+    private List<Collidable> anchors = new ArrayList<Collidable>();
+
+    /**
+     * Constructs a world over the bricks of a level.
+     *
+     * @param level              the level
+     * @param chunkSize          the side length of a chunk
+     * @param activationDistance how close a tracked object must get to a chunk's
+     *                           bricks for the chunk to be loaded
+     * @param maxLoadedChunks    how many chunks may stay loaded when nothing is
+     *                           near them
+     */
+    public ChunkedWorld(LevelFile level, double chunkSize, double activationDistance, int maxLoadedChunks) {
+        this.level = level;
+        this.chunkSize = chunkSize;
+        this.activationDistance = activationDistance;
+        this.maxLoadedChunks = maxLoadedChunks;
+        this.columns = Math.max(1, (int) Math.ceil(level.getLevelWidth() / chunkSize));
+        this.rows = Math.max(1, (int) Math.ceil(level.getLevelHeight() / chunkSize));
+        int chunks = this.columns * this.rows;
+        this.removed = new long[chunks][];
+        this.neededAt = new int[chunks];
+        Arrays.fill(this.neededAt, -1);
+        this.alive = level.getBrickCount();
+
+        // Every brick belongs to the chunk of its upper-left corner.
+        int count = level.getBrickCount();
+        int[] home = new int[count];
+        this.chunkStarts = new int[chunks + 1];
+        for (int i = 0; i < count; i++) {
+            home[i] = chunkOf(level.getX(i), level.getY(i));
+            this.chunkStarts[home[i] + 1]++;
+            this.maxBrickSize = Math.max(this.maxBrickSize, Math.max(level.getWidth(i), level.getHeight(i)));
+        }
+        for (int c = 0; c < chunks; c++) {
+            this.chunkStarts[c + 1] += this.chunkStarts[c];
+        }
+        int[] fill = Arrays.copyOf(this.chunkStarts, chunks);
+        this.chunkBricks = new int[count];
+        this.brickSlots = new int[count];
+        for (int i = 0; i < count; i++) {
+            this.brickSlots[i] = fill[home[i]] - this.chunkStarts[home[i]];
+            this.chunkBricks[fill[home[i]]++] = i;
+        }
+        for (int c = 0; c < chunks; c++) {
+            this.stateWords += words(c);
+        }
+
+        // The bounds of a chunk's bricks, which may stick out of the chunk itself.
+        this.chunkBounds = new float[chunks * 4];
+        for (int c = 0; c < chunks; c++) {
+            float minX = Float.POSITIVE_INFINITY;
+            float minY = Float.POSITIVE_INFINITY;
+            float maxX = Float.NEGATIVE_INFINITY;
+            float maxY = Float.NEGATIVE_INFINITY;
+            for (int k = this.chunkStarts[c]; k < this.chunkStarts[c + 1]; k++) {
+                int brick = this.chunkBricks[k];
+                minX = Math.min(minX, (float) level.getX(brick));
+                minY = Math.min(minY, (float) level.getY(brick));
+                maxX = Math.max(maxX, (float) (level.getX(brick) + level.getWidth(brick)));
+                maxY = Math.max(maxY, (float) (level.getY(brick) + level.getHeight(brick)));
+            }
+            this.chunkBounds[c * 4] = minX;
+            this.chunkBounds[c * 4 + 1] = minY;
+            this.chunkBounds[c * 4 + 2] = maxX;
+            this.chunkBounds[c * 4 + 3] = maxY;
+        }
+    }
+
+    private int words(int chunk) {
+        return (this.chunkStarts[chunk + 1] - this.chunkStarts[chunk] + Long.SIZE - 1) / Long.SIZE;
+    }
+
+    private int chunkOf(double x, double y) {
+        int col = Math.min(Math.max((int) Math.floor(x / this.chunkSize), 0), this.columns - 1);
+        int row = Math.min(Math.max((int) Math.floor(y / this.chunkSize), 0), this.rows - 1);
+        return col + row * this.columns;
+    }
+
+    /**
+     * Makes a ball load the chunks near it.
+     *
+     * @param ball the ball to track
+     */
+    public void track(Ball ball) {
+        this.balls.add(ball);
+    }
+
+    /**
+     * Makes every ball of a ball system load the chunks near it.
+     *
+     * @param system the ball system to track
+     */
+    public void track(BallSystem system) {
+        this.ballSystems.add(system);
+    }
+
+    /**
+     * Makes a collidable, like the paddle, load the chunks near its collision
+     * rectangle.
+     *
+     * @param c the collidable to track
+     */
+    public void track(Collidable c) {
+        this.anchors.add(c);
+    }
+
+    /**
+     * Gets the level of the world.
+     *
+     * @return the level
+     */
+    public LevelFile getLevel() {
+        return this.level;
+    }
+
+    /**
+     * Gets the number of bricks that were not removed.
+     *
+     * @return the number of bricks left
+     */
+    public int getAliveBricks() {
+        return this.alive;
+    }
+
+    /**
+     * Gets the number of chunks.
+     *
+     * @return the number of chunks
+     */
+    public int getChunkCount() {
+        return this.columns * this.rows;
+    }
+
+    /**
+     * Gets the number of chunks currently loaded.
+     *
+     * @return the number of loaded chunks
+     */
+    public int getLoadedChunks() {
+        return this.loaded.size();
+    }
+
+    /**
+     * Gets the number of bricks currently in the collidables of the game.
+     *
+     * @return the number of loaded bricks
+     */
+    public int getLoadedBricks() {
+        return this.loadedBricks;
+    }
+
+    /**
+     * Gets the number of chunk loads so far.
+     *
+     * @return the number of loads
+     */
+    public long getLoads() {
+        return this.loads;
+    }
+
+    /**
+     * Gets the number of chunk evictions so far.
+     *
+     * @return the number of evictions
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Checks if a brick was not removed.
+     *
+     * @param brick the id of the brick in the level
+     * @return true if the brick is still in the world, false otherwise
+     */
+    public boolean isAlive(int brick) {
+        return isAlive(chunkOf(this.level.getX(brick), this.level.getY(brick)), this.brickSlots[brick]);
+    }
+
+    private boolean isAlive(int chunk, int slot) {
+        long[] bits = this.removed[chunk];
+        return bits == null || (bits[slot / Long.SIZE] & (1L << slot)) == 0;
+    }
+
+    /**
+     * Removes a brick from the world, so it doesn't come back when its chunk is
+     * loaded again.
+     *
+     * @param chunk the chunk holding the brick
+     * @param slot  the position of the brick within its chunk
+     */
+    void removeBrick(int chunk, int slot) {
+        if (!isAlive(chunk, slot)) {
+            return;
+        }
+        if (this.removed[chunk] == null) {
+            int size = this.chunkStarts[chunk + 1] - this.chunkStarts[chunk];
+            this.removed[chunk] = new long[(size + Long.SIZE - 1) / Long.SIZE];
+        }
+        this.removed[chunk][slot / Long.SIZE] |= 1L << slot;
+        this.alive--;
+        ChunkBrick[] blocks = this.loaded.get(chunk);
+        if (blocks != null && blocks[slot] != null) {
+            blocks[slot] = null;
+            this.loadedBricks--;
+        }
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeState(ByteBuffer)} writes: a bit per
+     * brick, rounded up to whole longs per chunk.
+     *
+     * @return the size of the state in bytes
+     */
+    public int stateSize() {
+        return this.stateWords * Long.BYTES;
+    }
+
+    /**
+     * Writes the bits of the removed bricks, chunk by chunk.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeState(ByteBuffer buffer) {
+        for (int c = 0; c < this.removed.length; c++) {
+            long[] bits = this.removed[c];
+            int words = words(c);
+            for (int w = 0; w < words; w++) {
+                buffer.putLong(bits == null ? 0 : bits[w]);
+            }
+        }
+    }
+
+    /**
+     * Replaces the removed bricks with the ones written by
+     * {@link #writeState(ByteBuffer)}. Every loaded chunk is dropped and the
+     * chunks near the tracked objects are loaded again, with the bricks standing
+     * in the snapshot.
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readState(ByteBuffer buffer) {
+        int removedCount = 0;
+        for (int c = 0; c < this.removed.length; c++) {
+            int words = words(c);
+            for (int w = 0; w < words; w++) {
+                long word = buffer.getLong();
+                if (word != 0 && this.removed[c] == null) {
+                    this.removed[c] = new long[words];
+                }
+                if (this.removed[c] != null) {
+                    this.removed[c][w] = word;
+                }
+                removedCount += Long.bitCount(word);
+            }
+        }
+        this.alive = this.level.getBrickCount() - removedCount;
+        if (this.game != null) {
+            for (ChunkBrick[] blocks : this.loaded.values()) {
+                for (ChunkBrick block : blocks) {
+                    if (block != null) {
+                        block.unload(this.game);
+                    }
+                }
+            }
+        }
+        this.loaded.clear();
+        this.loadedBricks = 0;
+        update();
+    }
+
+    /**
+     * Loads the chunks near the tracked objects, and drops the least recently
+     * needed chunks while more than the allowed number are loaded. Chunks needed
+     * right now are never dropped.
+     */
+    public void update() {
+        if (this.game == null) {
+            return;
+        }
+        this.epoch++;
+        for (int i = 0; i < this.balls.size(); i++) {
+            Ball ball = this.balls.get(i);
+            activate(ball.getX(), ball.getY(), ball.getX(), ball.getY());
+        }
+        for (int s = 0; s < this.ballSystems.size(); s++) {
+            BallSystem system = this.ballSystems.get(s);
+            for (int i = 0; i < system.size(); i++) {
+                BallView ball = system.getBall(i);
+                activate(ball.getX(), ball.getY(), ball.getX(), ball.getY());
+            }
+        }
+        for (int i = 0; i < this.anchors.size(); i++) {
+            Rectangle rect = this.anchors.get(i).getCollisionRectangle();
+            activate(rect.getStartX(), rect.getStartY(), rect.getEndX(), rect.getEndY());
+        }
+
+        Iterator<Map.Entry<Integer, ChunkBrick[]>> eldest = this.loaded.entrySet().iterator();
+        while (this.loaded.size() > this.maxLoadedChunks && eldest.hasNext()) {
+            Map.Entry<Integer, ChunkBrick[]> entry = eldest.next();
+            if (this.neededAt[entry.getKey()] == this.epoch) {
+                continue;
+            }
+            for (ChunkBrick block : entry.getValue()) {
+                if (block != null) {
+                    block.unload(this.game);
+                    this.loadedBricks--;
+                }
+            }
+            eldest.remove();
+            this.evictions++;
+        }
+    }
+
+    /**
+     * Loads the chunks whose bricks are within the activation distance of a box.
+     *
+     * @param minX the left side of the box
+     * @param minY the upper side of the box
+     * @param maxX the right side of the box
+     * @param maxY the bottom side of the box
+     */
+    private void activate(double minX, double minY, double maxX, double maxY) {
+        // A chunk's bricks start inside it but may stick out by up to a brick.
+        double reach = this.activationDistance + this.maxBrickSize;
+        int fromCol = Math.max((int) Math.floor((minX - reach) / this.chunkSize), 0);
+        int toCol = Math.min((int) Math.floor((maxX + this.activationDistance) / this.chunkSize), this.columns - 1);
+        int fromRow = Math.max((int) Math.floor((minY - reach) / this.chunkSize), 0);
+        int toRow = Math.min((int) Math.floor((maxY + this.activationDistance) / this.chunkSize), this.rows - 1);
+        for (int row = fromRow; row <= toRow; row++) {
+            for (int col = fromCol; col <= toCol; col++) {
+                int chunk = col + row * this.columns;
+                if (this.neededAt[chunk] == this.epoch || this.chunkStarts[chunk] == this.chunkStarts[chunk + 1]) {
+                    continue;
+                }
+                double gapX = Math.max(0, Math.max(this.chunkBounds[chunk * 4] - maxX,
+                        minX - this.chunkBounds[chunk * 4 + 2]));
+                double gapY = Math.max(0, Math.max(this.chunkBounds[chunk * 4 + 1] - maxY,
+                        minY - this.chunkBounds[chunk * 4 + 3]));
+                if (gapX * gapX + gapY * gapY > this.activationDistance * this.activationDistance) {
+                    continue;
+                }
+                this.neededAt[chunk] = this.epoch;
+                if (this.loaded.get(chunk) == null) {
+                    load(chunk);
+                }
+            }
+        }
+    }
+
+    /**
+     * Makes a Block for every brick of a chunk still standing and adds it to the
+     * game.
+     *
+     * @param chunk the chunk to load
+     */
+    private void load(int chunk) {
+        int start = this.chunkStarts[chunk];
+        ChunkBrick[] blocks = new ChunkBrick[this.chunkStarts[chunk + 1] - start];
+        for (int slot = 0; slot < blocks.length; slot++) {
+            if (!isAlive(chunk, slot)) {
+                continue;
+            }
+            Rectangle rect = this.level.getRectangle(this.chunkBricks[start + slot]);
+            ChunkBrick block = new ChunkBrick(this, chunk, slot, rect);
+            this.hitListeners.addAllTo(block);
+            block.addToGame(this.game);
+            blocks[slot] = block;
+            this.loadedBricks++;
+        }
+        this.loaded.put(chunk, blocks);
+        this.loads++;
+    }
+
+    // HitNotifier
+
+    /**
+     * Adds a hit listener, notified whenever a brick is hit.
+     *
+     * @param hl the hit listener to add
+     */
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.hitListeners.add(hl);
+    }
+
+    /**
+     * Removes a hit listener. Bricks already loaded keep it.
+     *
+     * @param hl the hit listener to remove
+     */
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.hitListeners.remove(hl);
+    }
+
+    // Sprite
+
+    /**
+     * Draws the bricks of the chunks inside the surface that were not removed.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int lastCol = Math.min((int) (d.getWidth() / this.chunkSize), this.columns - 1);
+        int lastRow = Math.min((int) (d.getHeight() / this.chunkSize), this.rows - 1);
+        for (int row = 0; row <= lastRow; row++) {
+            for (int col = 0; col <= lastCol; col++) {
+                int chunk = col + row * this.columns;
+                int start = this.chunkStarts[chunk];
+                for (int k = start; k < this.chunkStarts[chunk + 1]; k++) {
+                    if (isAlive(chunk, k - start)) {
+                        this.level.drawBrick(d, this.chunkBricks[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads and drops chunks for the current positions of the tracked objects.
+     */
+    @Override
+    public void timePassed() {
+        update();
+    }
+
+    /**
+     * Adds the world to the game as a sprite. Its chunks are added as they load.
+     *
+     * @param g the game to add the world to
+     */
+    public void addToGame(Game g) {
+        this.game = g;
+        g.addSprite(this);
+    }
+}
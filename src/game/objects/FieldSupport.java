@@ -0,0 +1,112 @@
+package game.objects;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.IntFunction;
+
+import game.GridWalk;
+import game.HitEventQueue;
+import game.interfaces.HitListener;
+import game.listeners.HitListenerArray;
+import gui.RayHit;
+
+/**
+ * The FieldSupport class holds what a collidable standing for many bricks (a
+ * BrickField or a TileMap) needs besides the bricks themselves: its hit
+ * listeners, the hit event queue of its game, the Blocks made for the bricks
+ * that were hit, and a ray hit and a grid walk per thread for the queries, which
+ * may run on several threads at once.
+ *
+ * @param <T> the type of the Blocks standing for the bricks
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-16
+ */
+class FieldSupport<T extends Block> {
+    private final HitListenerArray hitListeners = new HitListenerArray();
+    private final ConcurrentMap<Integer, T> views = new ConcurrentHashMap<Integer, T>();
+    private final ThreadLocal<RayHit> scratchHit = ThreadLocal.withInitial(RayHit::new);
+    private final ThreadLocal<GridWalk> scratchWalk = ThreadLocal.withInitial(GridWalk::new);
+    private HitEventQueue hitEvents = null;
+
+    /**
+     * Adds a hit listener, given to every Block made from now on.
+     *
+     * @param hl the hit listener to add
+     */
+    void addHitListener(HitListener hl) {
+        this.hitListeners.add(hl);
+    }
+
+    /**
+     * Removes a hit listener.
+     *
+     * @param hl the hit listener to remove
+     */
+    void removeHitListener(HitListener hl) {
+        this.hitListeners.remove(hl);
+    }
+
+    /**
+     * Sets the hit event queue the Blocks post their hits into.
+     *
+     * @param queue the hit event queue of the game
+     */
+    void setHitEvents(HitEventQueue queue) {
+        this.hitEvents = queue;
+    }
+
+    /**
+     * Gets the Block standing for a brick, making it on the brick's first hit
+     * with the listeners and the hit event queue of the field.
+     *
+     * @param key     the key of the brick in its field
+     * @param factory makes the Block of a brick from its key
+     * @return the Block of the brick
+     */
+    T view(int key, IntFunction<T> factory) {
+        return this.views.computeIfAbsent(key, k -> {
+            T view = factory.apply(k);
+            this.hitListeners.addAllTo(view);
+            if (this.hitEvents != null) {
+                view.setHitEvents(this.hitEvents);
+            }
+            return view;
+        });
+    }
+
+    /**
+     * Drops the Block of a brick that left the field.
+     *
+     * @param key the key of the brick in its field
+     */
+    void removeView(int key) {
+        this.views.remove(key);
+    }
+
+    /**
+     * Drops the Blocks of every brick.
+     */
+    void clearViews() {
+        this.views.clear();
+    }
+
+    /**
+     * Gets the ray hit of the calling thread, for queries that only need the hit
+     * fraction.
+     *
+     * @return the ray hit of the thread
+     */
+    RayHit scratchHit() {
+        return this.scratchHit.get();
+    }
+
+    /**
+     * Gets the grid walk of the calling thread.
+     *
+     * @return the grid walk of the thread
+     */
+    GridWalk scratchWalk() {
+        return this.scratchWalk.get();
+    }
+}
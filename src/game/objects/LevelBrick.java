@@ -0,0 +1,61 @@
+package game.objects;
+
+import game.Game;
+import gui.shapes.Rectangle;
+
+/**
+ * The LevelBrick class is the Block standing for a single brick of a BrickField.
+ * It is created when the brick is first hit, so hit listeners get a Block just
+ * like for a brick of its own. Removing it from the game removes the brick from
+ * its field.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-30
+ */
+public class LevelBrick extends Block {
+    private BrickField field;
+    private int brick;
+
+    /**
+     * Constructs the block of a brick.
+     *
+     * @param field the field holding the brick
+     * @param brick the id of the brick in the level
+     * @param rect  the rectangle covering the brick, in the brick's color
+     */
+    LevelBrick(BrickField field, int brick, Rectangle rect) {
+        super(rect);
+        this.field = field;
+        this.brick = brick;
+    }
+
+    /**
+     * Gets the id of the brick in the level.
+     *
+     * @return the brick id
+     */
+    public int getBrick() {
+        return this.brick;
+    }
+
+    /**
+     * Does nothing, since the brick is part of its field, which is added to the game.
+     *
+     * @param g the game
+     */
+    @Override
+    public void addToGame(Game g) {
+    }
+
+    /**
+     * Removes the brick from its field.
+     *
+     * @param g the game to remove the brick from
+     */
+    @Override
+    public void removeFromGame(Game g) {
+        this.field.removeBrick(this.brick);
+        g.getHitEvents().unregister(this);
+    }
+}
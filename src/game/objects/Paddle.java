@@ -6,7 +6,9 @@ import biuoop.KeyboardSensor;
 
 import game.Game;
 import game.GameEnvironment;
+import game.informative.CollisionInfo;
 import game.interfaces.Collidable;
+import game.interfaces.Hitter;
 import game.interfaces.Sprite;
 import gui.Point;
 import gui.Velocity;
@@ -17,7 +19,7 @@ import gui.shapes.Rectangle;
  * It implements both the Sprite and Collidable interfaces.
  *
  * @author Ofek Avan Danan ofek.avandanan@live.biu.ac.il
- * @version 1.3
+ * @version 1.9
  * @since 2024-29-01
  */
 public class Paddle implements Sprite, Collidable {
@@ -27,49 +29,83 @@ public class Paddle implements Sprite, Collidable {
 
     private biuoop.KeyboardSensor keyboard;
     private Rectangle rectangle;
-    private Collidable collidable;
+    private Rectangle area;
+    private GameEnvironment environment;
 
     /**
-     * Constructs a paddle with the specified parameters.
+     * Constructs a paddle that reads its moves from the given keyboard sensor.
      *
      * @param location    the upper-left corner of the paddle
      * @param width       the width of the paddle
      * @param height      the height of the paddle
      * @param color       the color of the paddle
-     * @param gui         the GUI object associated with the game
+     * @param keyboard    the input source of the paddle
      * @param environment the game environment
+     * @param area        the game area the paddle moves in, wrapping around its sides
      */
-    public Paddle(Point location, double width, double height, java.awt.Color color, biuoop.GUI gui,
-            GameEnvironment environment) {
+    public Paddle(Point location, double width, double height, java.awt.Color color, KeyboardSensor keyboard,
+            GameEnvironment environment, Rectangle area) {
         this.rectangle = new Rectangle(location, width, height, color);
-        this.keyboard = gui.getKeyboardSensor();
-        this.collidable = environment.getCollidablesList().get(1);
+        this.keyboard = keyboard;
+        this.area = area;
+        this.environment = environment;
     }
 
     /**
      * Moves the paddle to the left.
      */
     public void moveLeft() {
-        Rectangle frame = collidable.getCollisionRectangle();
+        Rectangle frame = this.area;
         Point currentPosition = rectangle.getUpperLeft();
         if (frame.getStartX() < currentPosition.getX()) {
             this.rectangle.changePosition(new Point(currentPosition.getX() - PRESS_MOVE, currentPosition.getY()));
         } else {
             this.rectangle.changePosition(new Point(frame.getEndX() - rectangle.getWidth(), currentPosition.getY()));
         }
+        this.environment.updateCollidable(this);
     }
 
     /**
      * Moves the paddle to the right.
      */
     public void moveRight() {
-        Rectangle frame = collidable.getCollisionRectangle();
+        Rectangle frame = this.area;
         Point currentPosition = rectangle.getUpperLeft();
-        if (collidable.getCollisionRectangle().getEndX() - rectangle.getWidth() > currentPosition.getX()) {
+        if (frame.getEndX() - rectangle.getWidth() > currentPosition.getX()) {
             this.rectangle.changePosition(new Point(currentPosition.getX() + PRESS_MOVE, currentPosition.getY()));
         } else {
             this.rectangle.changePosition(new Point(frame.getStartX(), currentPosition.getY()));
         }
+        this.environment.updateCollidable(this);
+    }
+
+    /**
+     * Gets the area the paddle moves in.
+     *
+     * @return the area
+     */
+    public Rectangle getArea() {
+        return this.area;
+    }
+
+    /**
+     * Gets the distance the paddle moves in a tick while a key is pressed.
+     *
+     * @return the move step
+     */
+    public double getMoveStep() {
+        return PRESS_MOVE;
+    }
+
+    /**
+     * Moves the paddle to a given x-coordinate, like when a game is restored from a
+     * snapshot.
+     *
+     * @param x the new x-coordinate of the left side of the paddle
+     */
+    public void moveTo(double x) {
+        this.rectangle.changePosition(new Point(x, this.rectangle.getStartY()));
+        this.environment.updateCollidable(this);
     }
 
     // Sprite
@@ -116,12 +152,13 @@ public class Paddle implements Sprite, Collidable {
      * based on the hit location.
      *
      * @param hitter          the ball that hit the paddle
-     * @param collisionPoint  the collision point with the paddle
+     * @param collision       the collision with the paddle
      * @param currentVelocity the current velocity of the ball
      * @return the new velocity of the ball after the hit
      */
     @Override
-    public Velocity hit(Ball hitter, Point collisionPoint, Velocity currentVelocity) {
+    public Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity) {
+        Point collisionPoint = collision.collisionPoint();
         double posX = collisionPoint.getX() - this.rectangle.getStartX() - 1;
         double posY = collisionPoint.getY() - this.rectangle.getEndY() + 1;
 
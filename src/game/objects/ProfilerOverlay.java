@@ -0,0 +1,70 @@
+package game.objects;
+
+import java.awt.Color;
+import biuoop.DrawSurface;
+
+import game.informative.FrameProfiler;
+import game.interfaces.Sprite;
+
+/**
+ * The ProfilerOverlay class is a sprite that shows the p50, p99 and maximum
+ * duration of every frame phase in the corner of the screen. The lines are
+ * rebuilt only a couple of times a second.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-24
+ */
+public class ProfilerOverlay implements Sprite {
+    private static final int REFRESH_FRAMES = 30;
+    private static final int FONT_SIZE = 12;
+    private static final int LINE_HEIGHT = 14;
+
+    private FrameProfiler profiler;
+    private int x;
+    private int y;
+    private Color color;
+    private String[] lines;
+    private int frames = 0;
+
+    /**
+     * Constructs an overlay for the given profiler.
+     *
+     * @param profiler the profiler to show
+     * @param x        the x-coordinate of the first line
+     * @param y        the y-coordinate of the first line
+     * @param color    the color of the text
+     */
+    public ProfilerOverlay(FrameProfiler profiler, int x, int y, Color color) {
+        this.profiler = profiler;
+        this.x = x;
+        this.y = y;
+        this.color = color;
+        this.lines = new String[profiler.getPhaseCount()];
+    }
+
+    /**
+     * Draws the phase summaries.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        if (this.frames++ % REFRESH_FRAMES == 0) {
+            for (int i = 0; i < this.lines.length; i++) {
+                this.lines[i] = this.profiler.summary(i);
+            }
+        }
+        d.setColor(this.color);
+        for (int i = 0; i < this.lines.length; i++) {
+            d.drawText(this.x, this.y + i * LINE_HEIGHT, this.lines[i], FONT_SIZE);
+        }
+    }
+
+    /**
+     * Performs a time-based operation for the overlay (no time-based operation for this class).
+     */
+    @Override
+    public void timePassed() {
+    }
+}
@@ -0,0 +1,72 @@
+package game.objects;
+
+import game.Game;
+import gui.shapes.Rectangle;
+
+/**
+ * The TileBlock class is the Block standing for a single tile of a TileMap. It
+ * is created when the tile is first hit, so hit listeners get a Block just like
+ * for a brick of its own. Removing it from the game empties the tile.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-03-28
+ */
+public class TileBlock extends Block {
+    private TileMap map;
+    private int column;
+    private int row;
+
+    /**
+     * Constructs the block of a tile.
+     *
+     * @param map    the map holding the tile
+     * @param column the column of the tile
+     * @param row    the row of the tile
+     * @param rect   the rectangle covering the tile, in the tile's color
+     */
+    TileBlock(TileMap map, int column, int row, Rectangle rect) {
+        super(rect);
+        this.map = map;
+        this.column = column;
+        this.row = row;
+    }
+
+    /**
+     * Gets the column of the tile.
+     *
+     * @return the column
+     */
+    public int getColumn() {
+        return this.column;
+    }
+
+    /**
+     * Gets the row of the tile.
+     *
+     * @return the row
+     */
+    public int getRow() {
+        return this.row;
+    }
+
+    /**
+     * Does nothing, since the tile is part of its map, which is added to the game.
+     *
+     * @param g the game
+     */
+    @Override
+    public void addToGame(Game g) {
+    }
+
+    /**
+     * Removes the tile from its map.
+     *
+     * @param g the game to remove the tile from
+     */
+    @Override
+    public void removeFromGame(Game g) {
+        this.map.setTile(this.column, this.row, 0);
+        g.getHitEvents().unregister(this);
+    }
+}
@@ -0,0 +1,434 @@
+package game.objects;
+
+import java.awt.Color;
+import java.nio.ByteBuffer;
+import java.util.List;
+import biuoop.DrawSurface;
+
+import game.Game;
+import game.GridWalk;
+import game.informative.CollisionInfo;
+import game.interfaces.Collidable;
+import game.interfaces.Hitter;
+import game.interfaces.HitListener;
+import game.interfaces.HitNotifier;
+import game.interfaces.Sprite;
+import gui.Point;
+import gui.RayHit;
+import gui.Velocity;
+import gui.shapes.Rectangle;
+
+/**
+ * The TileMap class is a field of bricks on a regular lattice, stored as one
+ * byte per tile: 0 for an empty tile, or 1 + the index of the tile's color in
+ * the palette, read as an unsigned byte, so a palette holds up to 255 colors.
+ * It is a single collidable, and a trajectory is resolved with a grid walk over
+ * the tiles it crosses that stops at the first solid tile, so a query costs the
+ * length of the path no matter how many tiles the map has.
+ * A tile that gets hit acts as a Block (see TileBlock), with the same bounce,
+ * color matching and HitListener events as a brick of its own.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.7
+ * @since 2024-03-28
+ */
+public class TileMap implements Collidable, Sprite, HitNotifier {
+    private static final double AXIS_EPSILON = 1e-9;
+    private static final int MAX_TYPES = 0xFF;
+
+    private Rectangle bounds;
+    private double originX;
+    private double originY;
+    private double tileWidth;
+    private double tileHeight;
+    private int columns;
+    private int rows;
+    private byte[] tiles;
+    private Color[] palette;
+    private int solidTiles = 0;
+
+    private FieldSupport<TileBlock> support = new FieldSupport<TileBlock>();
+
+    /**
+     * Constructs an empty tile map.
+     *
+     * @param origin     the upper-left corner of the map
+     * @param tileWidth  the width of a tile
+     * @param tileHeight the height of a tile
+     * @param columns    the number of columns
+     * @param rows       the number of rows
+     * @param palette    the colors of the tile types, type t having palette[t - 1]
+     * @throws IllegalArgumentException if the palette has more than 255 colors
+     */
+    public TileMap(Point origin, double tileWidth, double tileHeight, int columns, int rows, Color[] palette) {
+        if (palette.length > MAX_TYPES) {
+            throw new IllegalArgumentException("A palette holds at most " + MAX_TYPES + " colors");
+        }
+        this.originX = origin.getX();
+        this.originY = origin.getY();
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.tiles = new byte[columns * rows];
+        this.palette = palette.clone();
+        this.bounds = new Rectangle(new Point(origin), tileWidth * columns, tileHeight * rows, Color.BLACK);
+    }
+
+    /**
+     * Gets the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int getRows() {
+        return this.rows;
+    }
+
+    /**
+     * Gets the type of a tile.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return 0 for an empty tile, or the type of the tile
+     */
+    public int getTile(int col, int row) {
+        return this.tiles[col + row * this.columns] & 0xFF;
+    }
+
+    /**
+     * Sets the type of a tile.
+     *
+     * @param col  the column of the tile
+     * @param row  the row of the tile
+     * @param type 0 to empty the tile, or a type between 1 and the palette size
+     * @throws IllegalArgumentException if the type is not in the palette
+     */
+    public void setTile(int col, int row, int type) {
+        if (type < 0 || type > this.palette.length) {
+            throw new IllegalArgumentException("Unknown tile type " + type);
+        }
+        int index = col + row * this.columns;
+        if (this.tiles[index] != 0) {
+            this.solidTiles--;
+        }
+        if (type != 0) {
+            this.solidTiles++;
+        }
+        this.tiles[index] = (byte) type;
+        if (type == 0) {
+            this.support.removeView(index);
+        }
+    }
+
+    /**
+     * Gets the number of solid tiles.
+     *
+     * @return the number of solid tiles
+     */
+    public int getSolidTiles() {
+        return this.solidTiles;
+    }
+
+    /**
+     * Gets the number of bytes {@link #writeState(ByteBuffer)} writes: a byte per
+     * tile.
+     *
+     * @return the size of the state in bytes
+     */
+    public int stateSize() {
+        return this.tiles.length;
+    }
+
+    /**
+     * Writes the type of every tile.
+     *
+     * @param buffer the buffer to write to
+     */
+    public void writeState(ByteBuffer buffer) {
+        buffer.put(this.tiles);
+    }
+
+    /**
+     * Sets every tile to the type written by {@link #writeState(ByteBuffer)}.
+     *
+     * @param buffer the buffer to read from
+     */
+    public void readState(ByteBuffer buffer) {
+        for (int i = 0; i < this.tiles.length; i++) {
+            byte type = buffer.get();
+            if (type != this.tiles[i]) {
+                setTile(i % this.columns, i / this.columns, type & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Gets the rectangle of a solid tile.
+     *
+     * @param col the column of the tile
+     * @param row the row of the tile
+     * @return a new rectangle covering the tile, in the tile's color
+     */
+    public Rectangle tileRectangle(int col, int row) {
+        return new Rectangle(new Point(this.originX + col * this.tileWidth, this.originY + row * this.tileHeight),
+                this.tileWidth, this.tileHeight, this.palette[getTile(col, row) - 1]);
+    }
+
+    // Collidable
+
+    /**
+     * Gets the rectangle bounding the whole map.
+     *
+     * @return the bounding rectangle
+     */
+    @Override
+    public Rectangle getCollisionRectangle() {
+        return this.bounds;
+    }
+
+    /**
+     * Gets the corners of the rectangle bounding the whole map.
+     *
+     * @return a list of collision points
+     */
+    @Override
+    public List<Point> getCollisionPoints() {
+        return this.bounds.getPoints();
+    }
+
+    @Override
+    public double rayIntersection(double x0, double y0, double dx, double dy) {
+        RayHit hit = this.support.scratchHit();
+        return castTiles(x0, y0, dx, dy, hit) >= 0 ? hit.getT() : Double.POSITIVE_INFINITY;
+    }
+
+    @Override
+    public boolean rayCast(double x0, double y0, double dx, double dy, RayHit hit) {
+        return castTiles(x0, y0, dx, dy, hit) >= 0;
+    }
+
+    /**
+     * Handles a hit on the tile the ray cast found, exactly like a Block of the
+     * tile's size and color would.
+     *
+     * @param hitter          the ball that hit the map
+     * @param collision       the collision with the map
+     * @param currentVelocity the current velocity of the ball
+     * @return the new velocity of the ball after the hit
+     */
+    @Override
+    public Velocity hit(Hitter hitter, CollisionInfo collision, Velocity currentVelocity) {
+        int index = collision.part();
+        if (index < 0 || this.tiles[index] == 0) {
+            return currentVelocity;
+        }
+        return tileView(index).hit(hitter, collision, currentVelocity);
+    }
+
+    /**
+     * Walks the tiles crossed by the segment from (x0, y0) to (x0 + dx, y0 + dy)
+     * until the first solid tile. A solid tile the segment starts in is ignored,
+     * so a ball resting on a tile's face can leave it.
+     *
+     * @param x0  the x-coordinate of the segment start
+     * @param y0  the y-coordinate of the segment start
+     * @param dx  the x-component of the segment
+     * @param dy  the y-component of the segment
+     * @param hit the result to fill with the hit fraction, face and tile index
+     * @return the index of the tile that was hit, or -1 on a miss
+     */
+    private int castTiles(double x0, double y0, double dx, double dy, RayHit hit) {
+        if (dx == 0 && dy == 0) {
+            hit.reset();
+            return -1;
+        }
+        double t;
+        int face;
+        boolean inside = x0 >= this.bounds.getStartX() && x0 <= this.bounds.getEndX()
+                && y0 >= this.bounds.getStartY() && y0 <= this.bounds.getEndY();
+        if (inside) {
+            t = 0;
+            face = RayHit.NONE;
+        } else {
+            if (!this.bounds.rayCast(x0, y0, dx, dy, hit)) {
+                return -1;
+            }
+            t = hit.getT();
+            face = hit.getFace();
+        }
+
+        int col = clamp(GridWalk.cellOf(x0 + dx * t, this.originX, this.tileWidth), this.columns);
+        int row = clamp(GridWalk.cellOf(y0 + dy * t, this.originY, this.tileHeight), this.rows);
+        // A segment running along a tile border touches the tiles on both sides of it.
+        boolean onColumnLine = Math.abs(dx) <= AXIS_EPSILON && onBorder((x0 - this.originX) / this.tileWidth);
+        boolean onRowLine = Math.abs(dy) <= AXIS_EPSILON && onBorder((y0 - this.originY) / this.tileHeight);
+        if (onColumnLine) {
+            col = (int) Math.rint((x0 - this.originX) / this.tileWidth);
+        }
+        if (onRowLine) {
+            row = (int) Math.rint((y0 - this.originY) / this.tileHeight);
+        }
+        // A segment that barely moves along an axis is walked as if it didn't move.
+        GridWalk walk = this.support.scratchWalk();
+        walk.start(this.originX, this.originY, this.tileWidth, this.tileHeight, col, row, x0, y0, dx, dy,
+                AXIS_EPSILON);
+
+        int minCol = onColumnLine ? col - 1 : col;
+        int maxCol = col;
+        int minRow = onRowLine ? row - 1 : row;
+        int maxRow = row;
+        boolean first = true;
+        while (maxCol >= 0 && minCol < this.columns && maxRow >= 0 && minRow < this.rows) {
+            if (!(first && inside)) {
+                int index = firstSolid(minCol, maxCol, minRow, maxRow);
+                if (index >= 0) {
+                    hit.set(t, face, index);
+                    return index;
+                }
+            }
+            first = false;
+            double next = walk.exitT();
+            if (next > 1) {
+                break;
+            }
+            t = next;
+            int lastCol = walk.getColumn();
+            int lastRow = walk.getRow();
+            face = walk.cross();
+            col = walk.getColumn();
+            row = walk.getRow();
+            if (lastCol != col && lastRow != row) {
+                // Through a corner: the two side tiles are touched at the same point.
+                minCol = Math.min(lastCol, col);
+                maxCol = Math.max(lastCol, col);
+                minRow = Math.min(lastRow, row);
+                maxRow = Math.max(lastRow, row);
+            } else {
+                minCol = onColumnLine ? col - 1 : col;
+                maxCol = col;
+                minRow = onRowLine ? row - 1 : row;
+                maxRow = row;
+            }
+        }
+        hit.reset();
+        return -1;
+    }
+
+    /**
+     * Finds the solid tile with the lowest index in a range of tiles, which is the
+     * one a row-by-row layout of blocks would have added first.
+     *
+     * @param minCol the first column
+     * @param maxCol the last column
+     * @param minRow the first row
+     * @param maxRow the last row
+     * @return the index of the tile, or -1 if the range has no solid tile
+     */
+    private int firstSolid(int minCol, int maxCol, int minRow, int maxRow) {
+        for (int r = Math.max(minRow, 0); r <= Math.min(maxRow, this.rows - 1); r++) {
+            for (int c = Math.max(minCol, 0); c <= Math.min(maxCol, this.columns - 1); c++) {
+                if (this.tiles[c + r * this.columns] != 0) {
+                    return c + r * this.columns;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean onBorder(double tiles) {
+        return Math.abs(tiles - Math.rint(tiles)) < AXIS_EPSILON;
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.min(Math.max(value, 0), size - 1);
+    }
+
+    /**
+     * Gets the block standing for a tile, creating it on its first hit.
+     *
+     * @param index the index of the tile
+     * @return the block of the tile
+     */
+    private TileBlock tileView(int index) {
+        return this.support.view(index, i -> {
+            int col = i % this.columns;
+            int row = i / this.columns;
+            return new TileBlock(this, col, row, tileRectangle(col, row));
+        });
+    }
+
+    // HitNotifier
+
+    /**
+     * Adds a hit listener, notified whenever a tile is hit.
+     *
+     * @param hl the hit listener to add
+     */
+    @Override
+    public void addHitListener(HitListener hl) {
+        this.support.addHitListener(hl);
+    }
+
+    /**
+     * Removes a hit listener.
+     *
+     * @param hl the hit listener to remove
+     */
+    @Override
+    public void removeHitListener(HitListener hl) {
+        this.support.removeHitListener(hl);
+    }
+
+    // Sprite
+
+    /**
+     * Draws the solid tiles that are inside the surface.
+     *
+     * @param d the DrawSurface to draw on
+     */
+    @Override
+    public void drawOn(DrawSurface d) {
+        int firstCol = clamp((int) Math.floor(-this.originX / this.tileWidth), this.columns);
+        int lastCol = clamp((int) Math.floor((d.getWidth() - this.originX) / this.tileWidth), this.columns);
+        int firstRow = clamp((int) Math.floor(-this.originY / this.tileHeight), this.rows);
+        int lastRow = clamp((int) Math.floor((d.getHeight() - this.originY) / this.tileHeight), this.rows);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                int type = this.tiles[col + row * this.columns] & 0xFF;
+                if (type == 0) {
+                    continue;
+                }
+                Rectangle.drawBox(d, (int) (this.originX + col * this.tileWidth),
+                        (int) (this.originY + row * this.tileHeight), (int) this.tileWidth, (int) this.tileHeight,
+                        this.palette[type - 1]);
+            }
+        }
+    }
+
+    /**
+     * Performs a time-based operation for the map (no time-based operation for this class).
+     */
+    @Override
+    public void timePassed() {
+    }
+
+    /**
+     * Adds the map to the game as a collidable and a sprite.
+     *
+     * @param g the game to add the map to
+     */
+    public void addToGame(Game g) {
+        this.support.setHitEvents(g.getHitEvents());
+        g.addCollidable(this);
+        g.addSprite(this);
+    }
+}
@@ -9,12 +9,19 @@ import gui.shapes.Rectangle;
  * The Line class represents a line in a 2D space defined by two points.
  * It includes methods for calculating the length, middle point, intersection,
  * and more.
+ * Besides the slope-based intersectionWith, a line can be intersected in its
+ * parametric form, start + t * (end - start) for t in [0, 1], with cross
+ * products that allocate nothing and need no special case for vertical lines;
+ * parallel and collinear lines are told apart explicitly (see
+ * {@link #segmentIntersection}).
  *
  * @author Ofek Avan Danan ofek.avandanan@live.biu.ac.il
- * @version 1.22
+ * @version 1.23
  * @since 2024-01-09
  */
 public class Line {
+    private static final double PARALLEL_EPSILON = 1e-12;
+
     private Point start;
     private Point end;
 
@@ -224,6 +231,92 @@ public class Line {
         return null;
     }
 
+    /**
+     * Finds where this line segment first meets another one, in the parametric
+     * form of this line. Allocates nothing.
+     *
+     * @param other the other line
+     * @return the fraction t in [0, 1] of this line from its start to the first
+     *         common point, or positive infinity if the segments don't meet
+     */
+    public double intersectionT(Line other) {
+        double x0 = this.start.getX();
+        double y0 = this.start.getY();
+        double x1 = other.start.getX();
+        double y1 = other.start.getY();
+        return segmentIntersection(x0, y0, this.end.getX() - x0, this.end.getY() - y0,
+                x1, y1, other.end.getX() - x1, other.end.getY() - y1);
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first meets
+     * the segment from (x1, y1) to (x1 + ex, y1 + ey). With w = (x1 - x0, y1 - y0)
+     * and the 2D cross product a x b = a.x * b.y - a.y * b.x, the segments meet
+     * at t = (w x e) / (d x e) on the first one and u = (w x d) / (d x e) on the
+     * second, when both are in [0, 1].
+     * When d x e is zero (up to rounding) the segments are parallel. Parallel
+     * segments on different lines never meet; collinear ones meet where their
+     * ranges overlap, and the first point of the overlap is reported. A segment
+     * of length zero is a point, which meets a segment it lies on.
+     *
+     * @param x0 the x-coordinate of the first segment's start
+     * @param y0 the y-coordinate of the first segment's start
+     * @param dx the x-component of the first segment
+     * @param dy the y-component of the first segment
+     * @param x1 the x-coordinate of the second segment's start
+     * @param y1 the y-coordinate of the second segment's start
+     * @param ex the x-component of the second segment
+     * @param ey the y-component of the second segment
+     * @return the fraction t in [0, 1] of the first segment until the first
+     *         common point, or positive infinity if the segments don't meet
+     */
+    public static double segmentIntersection(double x0, double y0, double dx, double dy,
+            double x1, double y1, double ex, double ey) {
+        double wx = x1 - x0;
+        double wy = y1 - y0;
+        double denominator = dx * ey - dy * ex;
+        double dd = dx * dx + dy * dy;
+        double ee = ex * ex + ey * ey;
+
+        if (denominator * denominator > PARALLEL_EPSILON * PARALLEL_EPSILON * dd * ee) {
+            double t = (wx * ey - wy * ex) / denominator;
+            double u = (wx * dy - wy * dx) / denominator;
+            return t >= 0 && t <= 1 && u >= 0 && u <= 1 ? t : Double.POSITIVE_INFINITY;
+        }
+
+        if (dd == 0) {
+            // The first segment is a point: it meets the second one if it lies on it.
+            return onSegment(-wx, -wy, ex, ey, ee) ? 0 : Double.POSITIVE_INFINITY;
+        }
+        double side = wx * dy - wy * dx;
+        if (side * side > PARALLEL_EPSILON * PARALLEL_EPSILON * (wx * wx + wy * wy) * dd) {
+            // Parallel, on different lines.
+            return Double.POSITIVE_INFINITY;
+        }
+        // Collinear (or the second segment is a point on the first one's line): overlap the ranges on d.
+        double u0 = (wx * dx + wy * dy) / dd;
+        double u1 = u0 + (ex * dx + ey * dy) / dd;
+        double from = Math.max(0, Math.min(u0, u1));
+        double to = Math.min(1, Math.max(u0, u1));
+        return from <= to ? from : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Checks if the point at offset (px, py) from a segment's start lies on the
+     * segment (ex, ey).
+     */
+    private static boolean onSegment(double px, double py, double ex, double ey, double ee) {
+        if (ee == 0) {
+            return px == 0 && py == 0;
+        }
+        double side = px * ey - py * ex;
+        if (side * side > PARALLEL_EPSILON * PARALLEL_EPSILON * (px * px + py * py) * ee) {
+            return false;
+        }
+        double u = (px * ex + py * ey) / ee;
+        return u >= 0 && u <= 1;
+    }
+
     /**
      * Checks for infinite intersection between this line and another line.
      *
@@ -0,0 +1,105 @@
+package gui;
+
+/**
+ * The RayHit class holds the result of a parametric ray cast: the fraction t of
+ * the segment travelled until the hit (0 at the start, 1 at the end) and the
+ * face of the rectangle that was crossed. A collidable made of many parts (like
+ * the bricks of a field or the tiles of a map) also records which part was hit,
+ * so the hit can be handled without searching for it again. It is mutable so a caller can reuse a
+ * single instance for every query instead of allocating a result per query.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-03-12
+ */
+public class RayHit {
+    /** No face was crossed. */
+    public static final int NONE = 0;
+    /** The left side (minimum x) was crossed. */
+    public static final int LEFT = 1;
+    /** The right side (maximum x) was crossed. */
+    public static final int RIGHT = 2;
+    /** The upper side (minimum y) was crossed. */
+    public static final int TOP = 4;
+    /** The bottom side (maximum y) was crossed. */
+    public static final int BOTTOM = 8;
+
+    private double t = Double.POSITIVE_INFINITY;
+    private int face = NONE;
+    private int part = -1;
+
+    /**
+     * Clears the result, so it represents a miss.
+     */
+    public void reset() {
+        this.t = Double.POSITIVE_INFINITY;
+        this.face = NONE;
+        this.part = -1;
+    }
+
+    /**
+     * Sets the result of the ray cast.
+     *
+     * @param fraction the fraction of the segment travelled until the hit
+     * @param hitFace  the face bits of the side (or two sides at a corner) crossed
+     */
+    public void set(double fraction, int hitFace) {
+        set(fraction, hitFace, -1);
+    }
+
+    /**
+     * Sets the result of the ray cast, with the part of the collidable that was
+     * hit.
+     *
+     * @param fraction the fraction of the segment travelled until the hit
+     * @param hitFace  the face bits of the side (or two sides at a corner) crossed
+     * @param hitPart  the index of the part that was hit
+     */
+    public void set(double fraction, int hitFace, int hitPart) {
+        this.t = fraction;
+        this.face = hitFace;
+        this.part = hitPart;
+    }
+
+    /**
+     * Checks if the ray cast hit something.
+     *
+     * @return true if there is a hit, false otherwise
+     */
+    public boolean isHit() {
+        return this.t != Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Gets the fraction of the segment travelled until the hit.
+     *
+     * @return the hit fraction, or positive infinity on a miss
+     */
+    public double getT() {
+        return this.t;
+    }
+
+    /**
+     * Gets the face bits of the side that was crossed. A corner hit has both an x
+     * face and a y face set.
+     *
+     * @return the face bits
+     */
+    public int getFace() {
+        return this.face;
+    }
+
+    /**
+     * Gets the index of the part of the collidable that was hit.
+     *
+     * @return the part index, or -1 if the collidable has no parts or on a miss
+     */
+    public int getPart() {
+        return this.part;
+    }
+
+    @Override
+    public String toString() {
+        return "t=" + this.t + " face=" + this.face + " part=" + this.part;
+    }
+}
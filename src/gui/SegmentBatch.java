@@ -0,0 +1,157 @@
+package gui;
+
+import java.util.Arrays;
+
+/**
+ * The SegmentBatch class holds line segments as parallel primitive arrays of
+ * their starts and components (x, y, dx, dy), so one segment can be intersected
+ * against all of them without a Line or a Point per segment. The segments keep
+ * the order they were added in, so ties go to the segment added first.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.0
+ * @since 2024-04-15
+ */
+public class SegmentBatch {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private double[] x;
+    private double[] y;
+    private double[] dx;
+    private double[] dy;
+    private int size = 0;
+
+    /**
+     * Constructs an empty batch.
+     */
+    public SegmentBatch() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty batch with room for the given number of segments.
+     *
+     * @param capacity the initial capacity
+     */
+    public SegmentBatch(int capacity) {
+        int length = Math.max(1, capacity);
+        this.x = new double[length];
+        this.y = new double[length];
+        this.dx = new double[length];
+        this.dy = new double[length];
+    }
+
+    /**
+     * Adds the segment from (x1, y1) to (x2, y2) after the segments already in
+     * the batch.
+     *
+     * @param x1 the x-coordinate of the start
+     * @param y1 the y-coordinate of the start
+     * @param x2 the x-coordinate of the end
+     * @param y2 the y-coordinate of the end
+     * @return the index of the segment
+     */
+    public int add(double x1, double y1, double x2, double y2) {
+        if (this.size == this.x.length) {
+            int capacity = this.size * 2;
+            this.x = Arrays.copyOf(this.x, capacity);
+            this.y = Arrays.copyOf(this.y, capacity);
+            this.dx = Arrays.copyOf(this.dx, capacity);
+            this.dy = Arrays.copyOf(this.dy, capacity);
+        }
+        this.x[this.size] = x1;
+        this.y[this.size] = y1;
+        this.dx[this.size] = x2 - x1;
+        this.dy[this.size] = y2 - y1;
+        return this.size++;
+    }
+
+    /**
+     * Adds a line after the segments already in the batch.
+     *
+     * @param line the line
+     * @return the index of the segment
+     */
+    public int add(Line line) {
+        Point start = line.start();
+        Point end = line.end();
+        return add(start.getX(), start.getY(), end.getX(), end.getY());
+    }
+
+    /**
+     * Removes every segment.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Gets the number of segments.
+     *
+     * @return the number of segments
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + sx, y0 + sy) first meets a
+     * single segment of the batch, like
+     * {@link Line#segmentIntersection(double, double, double, double, double, double, double, double)}.
+     *
+     * @param index the index of the segment
+     * @param x0    the x-coordinate of the segment start
+     * @param y0    the y-coordinate of the segment start
+     * @param sx    the x-component of the segment
+     * @param sy    the y-component of the segment
+     * @return the fraction t in [0, 1] of the segment until the first common
+     *         point, or positive infinity if they don't meet
+     */
+    public double intersection(int index, double x0, double y0, double sx, double sy) {
+        return Line.segmentIntersection(x0, y0, sx, sy, this.x[index], this.y[index], this.dx[index],
+                this.dy[index]);
+    }
+
+    /**
+     * Finds the segment of the batch that the segment from (x0, y0) to
+     * (x0 + sx, y0 + sy) meets first. Ties go to the lowest index. Allocates
+     * nothing.
+     *
+     * @param x0 the x-coordinate of the segment start
+     * @param y0 the y-coordinate of the segment start
+     * @param sx the x-component of the segment
+     * @param sy the y-component of the segment
+     * @return the index of the segment, or -1 if it meets none
+     */
+    public int nearest(double x0, double y0, double sx, double sy) {
+        int best = -1;
+        double bestT = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.size; i++) {
+            double t = intersection(i, x0, y0, sx, sy);
+            if (t < bestT) {
+                best = i;
+                bestT = t;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds how far the segment from (x0, y0) to (x0 + sx, y0 + sy) goes before
+     * it first meets a segment of the batch. Allocates nothing.
+     *
+     * @param x0 the x-coordinate of the segment start
+     * @param y0 the y-coordinate of the segment start
+     * @param sx the x-component of the segment
+     * @param sy the y-component of the segment
+     * @return the fraction t in [0, 1] of the segment until the nearest common
+     *         point, or positive infinity if it meets no segment
+     */
+    public double nearestT(double x0, double y0, double sx, double sy) {
+        double bestT = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < this.size; i++) {
+            bestT = Math.min(bestT, intersection(i, x0, y0, sx, sy));
+        }
+        return bestT;
+    }
+}
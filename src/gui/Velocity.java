@@ -3,7 +3,7 @@ package gui;
  * A class representing a 2D velocity with components dx and dy.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 1.5
+ * @version 1.6
  * @since 2024-01-17
  */
 public class Velocity {
@@ -21,6 +21,21 @@ public class Velocity {
         this.dy = dy;
     }
 
+    /**
+     * Reflects the velocity off a surface with an axis-aligned normal: each
+     * component that moves into the surface along an axis of the normal is
+     * negated. A normal with both components (a corner) reflects both.
+     *
+     * @param normalX the x-component of the normal, pointing out of the surface
+     * @param normalY the y-component of the normal, pointing out of the surface
+     * @return the reflected velocity
+     */
+    public Velocity reflect(double normalX, double normalY) {
+        double newDx = this.dx * normalX < 0 ? -this.dx : this.dx;
+        double newDy = this.dy * normalY < 0 ? -this.dy : this.dy;
+        return new Velocity(newDx, newDy);
+    }
+
     /**
      * Creates a velocity from an angle and speed.
      *
@@ -0,0 +1,161 @@
+package gui.shapes;
+
+import java.util.Arrays;
+
+/**
+ * The BoxBatch class holds axis-aligned boxes as parallel primitive arrays of
+ * their bounds (min x, min y, max x, max y), the layout a BoxKernel tests many
+ * boxes at a time over. The boxes keep the order they were added in, also
+ * across removals, so the lowest index is always the box added first.
+ * A box can also be disabled in place, which keeps the indexes of the others.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.1
+ * @since 2024-04-06
+ */
+public class BoxBatch {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private double[] minX;
+    private double[] minY;
+    private double[] maxX;
+    private double[] maxY;
+    private int size = 0;
+
+    /**
+     * Constructs an empty batch.
+     */
+    public BoxBatch() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty batch with room for the given number of boxes.
+     *
+     * @param capacity the initial capacity
+     */
+    public BoxBatch(int capacity) {
+        int length = Math.max(1, capacity);
+        this.minX = new double[length];
+        this.minY = new double[length];
+        this.maxX = new double[length];
+        this.maxY = new double[length];
+    }
+
+    /**
+     * Adds a box after the boxes already in the batch.
+     *
+     * @param left   the left side of the box
+     * @param top    the upper side of the box
+     * @param right  the right side of the box
+     * @param bottom the bottom side of the box
+     * @return the index of the box
+     */
+    public int add(double left, double top, double right, double bottom) {
+        if (this.size == this.minX.length) {
+            int capacity = this.size * 2;
+            this.minX = Arrays.copyOf(this.minX, capacity);
+            this.minY = Arrays.copyOf(this.minY, capacity);
+            this.maxX = Arrays.copyOf(this.maxX, capacity);
+            this.maxY = Arrays.copyOf(this.maxY, capacity);
+        }
+        this.minX[this.size] = left;
+        this.minY[this.size] = top;
+        this.maxX[this.size] = right;
+        this.maxY[this.size] = bottom;
+        return this.size++;
+    }
+
+    /**
+     * Adds the bounds of a rectangle after the boxes already in the batch.
+     *
+     * @param rect the rectangle
+     * @return the index of the box
+     */
+    public int add(Rectangle rect) {
+        return add(rect.getStartX(), rect.getStartY(), rect.getEndX(), rect.getEndY());
+    }
+
+    /**
+     * Removes a box, moving the boxes after it one index down.
+     *
+     * @param index the index of the box
+     */
+    public void remove(int index) {
+        int moved = this.size - index - 1;
+        System.arraycopy(this.minX, index + 1, this.minX, index, moved);
+        System.arraycopy(this.minY, index + 1, this.minY, index, moved);
+        System.arraycopy(this.maxX, index + 1, this.maxX, index, moved);
+        System.arraycopy(this.maxY, index + 1, this.maxY, index, moved);
+        this.size--;
+    }
+
+    /**
+     * Disables a box without moving the others: its bounds are set to infinity,
+     * where no segment can cross it.
+     *
+     * @param index the index of the box
+     */
+    public void disable(int index) {
+        this.minX[index] = Double.POSITIVE_INFINITY;
+        this.minY[index] = Double.POSITIVE_INFINITY;
+        this.maxX[index] = Double.POSITIVE_INFINITY;
+        this.maxY[index] = Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Removes every box.
+     */
+    public void clear() {
+        this.size = 0;
+    }
+
+    /**
+     * Gets the number of boxes.
+     *
+     * @return the number of boxes
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first crosses
+     * the boundary of a single box of the batch, like
+     * {@link Rectangle#rayIntersection(double, double, double, double)}.
+     *
+     * @param index the index of the box
+     * @param x0    the x-coordinate of the segment start
+     * @param y0    the y-coordinate of the segment start
+     * @param dx    the x-component of the segment
+     * @param dy    the y-component of the segment
+     * @return the fraction t in [0, 1] of the segment until the crossing, or
+     *         positive infinity if the segment doesn't cross the boundary
+     */
+    public double rayIntersection(int index, double x0, double y0, double dx, double dy) {
+        return Rectangle.boxIntersection(this.minX[index], this.minY[index], this.maxX[index], this.maxY[index],
+                x0, y0, dx, dy, null);
+    }
+
+    // The arrays themselves, read by the kernels.
+
+    /** Gets the left sides of the boxes. */
+    double[] minX() {
+        return this.minX;
+    }
+
+    /** Gets the upper sides of the boxes. */
+    double[] minY() {
+        return this.minY;
+    }
+
+    /** Gets the right sides of the boxes. */
+    double[] maxX() {
+        return this.maxX;
+    }
+
+    /** Gets the bottom sides of the boxes. */
+    double[] maxY() {
+        return this.maxY;
+    }
+}
@@ -0,0 +1,140 @@
+package gui.shapes;
+
+/**
+ * The BoxKernel class is the narrow phase of a closest collision query: given
+ * the candidate boxes a broad phase found for a trajectory, it finds the one
+ * the trajectory crosses first. Two kernels compute exactly the same answer as
+ * {@link Rectangle#boxIntersection}: a scalar loop, and one that tests several
+ * boxes per instruction with the incubating Vector API. The vector kernel is
+ * built apart from the game ({@code ant compile-vector}), and only used when
+ * its class was built and the {@code jdk.incubator.vector} module was added to
+ * the running JVM (with {@code --add-modules jdk.incubator.vector}); otherwise
+ * the scalar loop is used.
+ *
+ * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
+ * @version 1.2
+ * @since 2024-04-06
+ */
+public abstract class BoxKernel {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "gui.shapes.VectorBoxKernel";
+
+    private static final BoxKernel SCALAR = new ScalarBoxKernel();
+    private static final BoxKernel VECTOR = loadVector();
+    private static final BoxKernel BEST = VECTOR != null ? VECTOR : SCALAR;
+
+    /**
+     * Finds the box of the batch that the segment from (x0, y0) to
+     * (x0 + dx, y0 + dy) crosses first. Ties go to the lowest index.
+     *
+     * @param boxes the candidate boxes
+     * @param x0    the x-coordinate of the segment start
+     * @param y0    the y-coordinate of the segment start
+     * @param dx    the x-component of the segment
+     * @param dy    the y-component of the segment
+     * @return the index of the box, or -1 if the segment crosses none
+     */
+    public int nearest(BoxBatch boxes, double x0, double y0, double dx, double dy) {
+        return nearest(boxes, 0, boxes.size(), x0, y0, dx, dy);
+    }
+
+    /**
+     * Finds the box in the index range [from, to) of the batch that the segment
+     * from (x0, y0) to (x0 + dx, y0 + dy) crosses first. Ties go to the lowest
+     * index.
+     *
+     * @param boxes the candidate boxes
+     * @param from  the index of the first box to test
+     * @param to    the index after the last box to test
+     * @param x0    the x-coordinate of the segment start
+     * @param y0    the y-coordinate of the segment start
+     * @param dx    the x-component of the segment
+     * @param dy    the y-component of the segment
+     * @return the index of the box, or -1 if the segment crosses none
+     */
+    public abstract int nearest(BoxBatch boxes, int from, int to, double x0, double y0, double dx, double dy);
+
+    /**
+     * Gets the name of the kernel.
+     *
+     * @return the name
+     */
+    public abstract String getName();
+
+    /**
+     * Gets the scalar kernel, which always works.
+     *
+     * @return the scalar kernel
+     */
+    public static BoxKernel scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * Gets the Vector API kernel.
+     *
+     * @return the vector kernel
+     * @throws UnsupportedOperationException if the Vector API module isn't enabled
+     */
+    public static BoxKernel vector() {
+        if (VECTOR == null) {
+            throw new UnsupportedOperationException("Run with --add-modules " + VECTOR_MODULE);
+        }
+        return VECTOR;
+    }
+
+    /**
+     * Checks if the Vector API kernel can be used in this JVM.
+     *
+     * @return true if the Vector API module is enabled, false otherwise
+     */
+    public static boolean isVectorAvailable() {
+        return VECTOR != null;
+    }
+
+    /**
+     * Gets the fastest kernel available: the vector kernel if the Vector API
+     * module is enabled, the scalar one otherwise.
+     *
+     * @return the kernel
+     */
+    public static BoxKernel best() {
+        return BEST;
+    }
+
+    private static BoxKernel loadVector() {
+        if (ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+            return null;
+        }
+        try {
+            // Loaded by name, so the scalar path never links against the module.
+            return (BoxKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * The scalar kernel: one box at a time.
+     */
+    private static class ScalarBoxKernel extends BoxKernel {
+        @Override
+        public int nearest(BoxBatch boxes, int from, int to, double x0, double y0, double dx, double dy) {
+            int best = -1;
+            double bestT = Double.POSITIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                double t = boxes.rayIntersection(i, x0, y0, dx, dy);
+                if (t < bestT) {
+                    best = i;
+                    bestT = t;
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public String getName() {
+            return "scalar";
+        }
+    }
+}
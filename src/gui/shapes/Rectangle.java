@@ -8,12 +8,14 @@ import biuoop.DrawSurface;
 
 import gui.Point;
 import gui.Line;
+import gui.RayHit;
 
 /**
- * A class representing a rectangle in a 2D space.
+ * A class representing a rectangle in a 2D space. The four lines of the
+ * rectangle are built once and kept until it moves.
  *
  * @author Ofek Avan Danan | ofek.avandanan@live.biu.ac.il | 211824727
- * @version 2.171
+ * @version 2.173
  * @since 2024-01-21
  */
 public class Rectangle {
@@ -25,6 +27,7 @@ public class Rectangle {
    private double width;
    private double height;
    private Color color;
+   private List<Line> lines = null;
 
    private static final Color LINE_COLOR = new Color(33, 33, 33);
 
@@ -62,6 +65,7 @@ public class Rectangle {
       this.bottomRight = new Point(bottomRight);
       this.upperRight = new Point(bottomRight.getX(), upperLeft.getY());
       this.bottomLeft = new Point(upperLeft.getX(), bottomRight.getY());
+      this.lines = null;
    }
 
    /**
@@ -145,18 +149,22 @@ public class Rectangle {
    }
 
    /**
-    * Gets a list of the four lines composing the rectangle.
+    * Gets a list of the four lines composing the rectangle. The list is built
+    * on the first call after the rectangle moved, and shared until it moves
+    * again.
     *
-    * @return a List of the four lines
+    * @return an unmodifiable List of the four lines
     */
    public java.util.List<Line> getLines() {
-      List<Line> lines = new ArrayList<Line>();
-      lines.add(this.getUpperLine());
-      lines.add(this.getRightLine());
-      lines.add(this.getBottomLine());
-      lines.add(this.getLeftLine());
-
-      return lines;
+      if (this.lines == null) {
+         List<Line> built = new ArrayList<Line>(4);
+         built.add(this.getUpperLine());
+         built.add(this.getRightLine());
+         built.add(this.getBottomLine());
+         built.add(this.getLeftLine());
+         this.lines = java.util.Collections.unmodifiableList(built);
+      }
+      return this.lines;
    }
 
    /**
@@ -272,10 +280,26 @@ public class Rectangle {
     */
    public void drawOn(DrawSurface surface) {
       Point start = this.getStarPoint();
-      surface.setColor(this.getColor());
-      surface.fillRectangle((int) start.getX(), (int) start.getY(), (int) width, (int) height);
+      drawBox(surface, (int) start.getX(), (int) start.getY(), (int) width, (int) height, this.getColor());
+   }
+
+   /**
+    * Draws a box the way a rectangle is drawn: filled with its color and outlined
+    * with the line color. Lets fields of bricks draw a brick without making a
+    * rectangle for it.
+    *
+    * @param surface the DrawSurface to draw the box on
+    * @param x       the x-coordinate of the upper-left corner
+    * @param y       the y-coordinate of the upper-left corner
+    * @param width   the width of the box
+    * @param height  the height of the box
+    * @param color   the fill color
+    */
+   public static void drawBox(DrawSurface surface, int x, int y, int width, int height, Color color) {
+      surface.setColor(color);
+      surface.fillRectangle(x, y, width, height);
       surface.setColor(LINE_COLOR);
-      surface.drawRectangle((int) start.getX(), (int) start.getY(), (int) width, (int) height);
+      surface.drawRectangle(x, y, width, height);
    }
 
    /**
@@ -402,6 +426,119 @@ public class Rectangle {
       return points;
    }
 
+   /**
+    * Finds where the segment from (x0, y0) to (x0 + dx, y0 + dy) first crosses the
+    * boundary of the rectangle, using a parametric slab test that allocates
+    * nothing. A segment starting outside reports the point it enters the
+    * rectangle, and a segment starting inside reports the point it leaves it, just
+    * like the closest of {@link #intersectionPoints(Line)}.
+    *
+    * @param x0 the x-coordinate of the segment start
+    * @param y0 the y-coordinate of the segment start
+    * @param dx the x-component of the segment
+    * @param dy the y-component of the segment
+    * @return the fraction t in [0, 1] of the segment until the crossing, or
+    *         positive infinity if the segment doesn't cross the boundary
+    */
+   public double rayIntersection(double x0, double y0, double dx, double dy) {
+      return slab(x0, y0, dx, dy, null);
+   }
+
+   /**
+    * Same as {@link #rayIntersection(double, double, double, double)}, but also
+    * stores the crossed face into the given result.
+    *
+    * @param x0  the x-coordinate of the segment start
+    * @param y0  the y-coordinate of the segment start
+    * @param dx  the x-component of the segment
+    * @param dy  the y-component of the segment
+    * @param hit the result to fill, reset to a miss if there is no crossing
+    * @return true if the segment crosses the boundary, false otherwise
+    */
+   public boolean rayCast(double x0, double y0, double dx, double dy, RayHit hit) {
+      hit.reset();
+      return slab(x0, y0, dx, dy, hit) != Double.POSITIVE_INFINITY;
+   }
+
+   private double slab(double x0, double y0, double dx, double dy, RayHit hit) {
+      return boxIntersection(getStartX(), getStartY(), getEndX(), getEndY(), x0, y0, dx, dy, hit);
+   }
+
+   /**
+    * The slab test of {@link #rayCast(double, double, double, double, RayHit)} for
+    * an axis-aligned box given by its bounds, so boxes stored as plain numbers
+    * (like the bricks of a level file) can be tested without a Rectangle.
+    *
+    * @param minX the left side of the box
+    * @param minY the upper side of the box
+    * @param maxX the right side of the box
+    * @param maxY the bottom side of the box
+    * @param x0   the x-coordinate of the segment start
+    * @param y0   the y-coordinate of the segment start
+    * @param dx   the x-component of the segment
+    * @param dy   the y-component of the segment
+    * @param hit  the result to fill with the fraction and face, or null
+    * @return the fraction t in [0, 1] of the segment until the crossing, or
+    *         positive infinity if the segment doesn't cross the boundary
+    */
+   public static double boxIntersection(double minX, double minY, double maxX, double maxY, double x0, double y0,
+         double dx, double dy, RayHit hit) {
+      double nearX;
+      double farX;
+      if (dx == 0) {
+         if (x0 < minX || x0 > maxX) {
+            return Double.POSITIVE_INFINITY;
+         }
+         nearX = Double.NEGATIVE_INFINITY;
+         farX = Double.POSITIVE_INFINITY;
+      } else {
+         double t1 = (minX - x0) / dx;
+         double t2 = (maxX - x0) / dx;
+         nearX = Math.min(t1, t2);
+         farX = Math.max(t1, t2);
+      }
+
+      double nearY;
+      double farY;
+      if (dy == 0) {
+         if (y0 < minY || y0 > maxY) {
+            return Double.POSITIVE_INFINITY;
+         }
+         nearY = Double.NEGATIVE_INFINITY;
+         farY = Double.POSITIVE_INFINITY;
+      } else {
+         double t1 = (minY - y0) / dy;
+         double t2 = (maxY - y0) / dy;
+         nearY = Math.min(t1, t2);
+         farY = Math.max(t1, t2);
+      }
+
+      double near = Math.max(nearX, nearY);
+      double far = Math.min(farX, farY);
+      if (near > far) {
+         return Double.POSITIVE_INFINITY;
+      }
+
+      // Entering from outside hits the near side, starting inside hits the far side.
+      boolean entering = near >= 0;
+      double t = entering ? near : far;
+      if (t < 0 || t > 1) {
+         return Double.POSITIVE_INFINITY;
+      }
+
+      if (hit != null) {
+         int face = RayHit.NONE;
+         if (t == (entering ? nearX : farX)) {
+            face |= (dx > 0) == entering ? RayHit.LEFT : RayHit.RIGHT;
+         }
+         if (t == (entering ? nearY : farY)) {
+            face |= (dy > 0) == entering ? RayHit.TOP : RayHit.BOTTOM;
+         }
+         hit.set(t, face);
+      }
+      return t;
+   }
+
    /**
     * Provides a string representation of the rectangle.
     *